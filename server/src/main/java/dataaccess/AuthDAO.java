@@ -0,0 +1,29 @@
+package dataaccess;
+
+import model.AuthData;
+
+/**
+ * Stores the auth tokens issued at login
+ */
+public interface AuthDAO {
+
+    /**
+     * Stores a new auth token
+     */
+    void createAuth(AuthData auth) throws DataAccessException;
+
+    /**
+     * @return the auth data for a token, or null if the token is unknown
+     */
+    AuthData getAuth(String authToken) throws DataAccessException;
+
+    /**
+     * Removes a token, e.g. at logout
+     */
+    void deleteAuth(String authToken) throws DataAccessException;
+
+    /**
+     * Removes every token
+     */
+    void clear() throws DataAccessException;
+}
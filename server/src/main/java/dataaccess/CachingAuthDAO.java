@@ -0,0 +1,136 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link AuthDAO} that keeps recently used tokens in memory, so checking
+ * the token on an authenticated request is a hash lookup instead of a query.
+ * <p>
+ * Entries live for a fixed time after they were loaded, and the cache holds
+ * at most {@code maxEntries} tokens; when it is full, expired entries are
+ * dropped first and then the tokens closest to expiring.
+ * <p>
+ * Deleting a token leaves a revoked marker in the cache before the token is
+ * removed from the database. A lookup that raced with the delete can't put
+ * the token back over the marker, so a logged out token is never accepted
+ * again. Markers are only dropped once they expire, never to make room, so
+ * the cache can briefly hold more than {@code maxEntries} after a burst of
+ * logouts. Other unknown tokens are not cached.
+ * <p>
+ * {@link #clear()} bumps a generation counter before clearing the database,
+ * and a lookup only caches what it loaded if the generation hasn't moved, so
+ * a lookup racing a clear can't put a cleared token back.
+ */
+public class CachingAuthDAO implements AuthDAO {
+    private final AuthDAO delegate;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param delegate   the DAO that actually stores tokens
+     * @param ttlMillis  how long a token may be served from memory
+     * @param maxEntries the most tokens kept in memory
+     */
+    public CachingAuthDAO(AuthDAO delegate, long ttlMillis, int maxEntries) {
+        this.delegate = delegate;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        delegate.createAuth(auth);
+        long now = System.nanoTime();
+        cache.put(auth.authToken(), new Entry(auth, now + ttlNanos));
+        trim(now);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        if(authToken == null){
+            return null;
+        }
+        long now = System.nanoTime();
+        Entry entry = cache.get(authToken);
+        if(entry != null && now - entry.expiresAt < 0){
+            return entry.auth;
+        }
+        long seen = generation.get();
+        AuthData auth = delegate.getAuth(authToken);
+        if(auth != null){
+            Entry loaded = new Entry(auth, now + ttlNanos);
+            cache.compute(authToken, (token, current) -> {
+                if(current != null && current.auth == null || generation.get() != seen){
+                    return current;
+                }
+                return loaded;
+            });
+            trim(now);
+        }
+        return auth;
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        cache.put(authToken, new Entry(null, System.nanoTime() + ttlNanos));
+        delegate.deleteAuth(authToken);
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        generation.incrementAndGet();
+        delegate.clear();
+        cache.clear();
+    }
+
+    /**
+     * @return how many tokens, including revoked ones, are cached
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    private void trim(long now) {
+        if(cache.size() > maxEntries){
+            evict(now);
+        }
+    }
+
+    /**
+     * Drops expired entries, then if still over the limit drops the oldest
+     * tenth of the live tokens, so a full cache isn't scanned on every
+     * insert. Revoked markers are kept until they expire.
+     */
+    private void evict(long now) {
+        cache.values().removeIf(entry -> now - entry.expiresAt >= 0);
+        int excess = cache.size() - maxEntries;
+        if(excess <= 0){
+            return;
+        }
+        long[] expiries = cache.values().stream().filter(entry -> entry.auth != null)
+                .mapToLong(entry -> entry.expiresAt - now).sorted().toArray();
+        if(expiries.length == 0){
+            return;
+        }
+        int index = Math.min(expiries.length - 1, excess + maxEntries / 10);
+        long cutoff = expiries[index];
+        for(Map.Entry<String, Entry> cached : cache.entrySet()){
+            Entry entry = cached.getValue();
+            if(entry.auth != null && entry.expiresAt - now <= cutoff){
+                cache.remove(cached.getKey(), entry);
+            }
+        }
+    }
+
+    /**
+     * A cached token; auth is null for a token that was deleted
+     */
+    private record Entry(AuthData auth, long expiresAt) {
+    }
+}
@@ -0,0 +1,34 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps auth tokens in memory; they are lost when the server stops
+ */
+public class MemoryAuthDAO implements AuthDAO {
+    private final ConcurrentHashMap<String, AuthData> tokens = new ConcurrentHashMap<>();
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        if(tokens.putIfAbsent(auth.authToken(), auth) != null){
+            throw new DataAccessException("auth token already exists");
+        }
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) {
+        return authToken == null ? null : tokens.get(authToken);
+    }
+
+    @Override
+    public void deleteAuth(String authToken) {
+        tokens.remove(authToken);
+    }
+
+    @Override
+    public void clear() {
+        tokens.clear();
+    }
+}
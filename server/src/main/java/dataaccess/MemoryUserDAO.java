@@ -0,0 +1,27 @@
+package dataaccess;
+
+import model.UserData;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps users in memory; they are lost when the server stops
+ */
+public class MemoryUserDAO implements UserDAO {
+    private final ConcurrentHashMap<String, UserData> users = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean createUser(UserData user) {
+        return users.putIfAbsent(user.username(), user) == null;
+    }
+
+    @Override
+    public UserData getUser(String username) {
+        return username == null ? null : users.get(username);
+    }
+
+    @Override
+    public void clear() {
+        users.clear();
+    }
+}
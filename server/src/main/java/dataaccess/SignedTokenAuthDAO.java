@@ -0,0 +1,218 @@
+package dataaccess;
+
+import model.AuthData;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An {@link AuthDAO} that stores nothing: tokens carry the username, an
+ * expiry time and a key id, and are signed with HMAC-SHA256. Checking a
+ * token only needs the key, so any server node holding the keys can accept
+ * it without a shared auth table.
+ * <p>
+ * Tokens are issued with {@link #issue(String)} rather than generated by the
+ * caller. Logging out adds the token to a revocation set on this node, which
+ * forgets each token once it would have expired anyway. {@link #clear()}
+ * rejects every token issued up to that moment while keeping the
+ * revocations, so a token that was logged out before a clear stays dead.
+ * <p>
+ * Revocations and clears only apply on the node that made them: another node
+ * holding the same keys still accepts a logged-out token until it expires.
+ * With more than one node, keep the lifetime short, minutes rather than
+ * days, since that is how long a stolen or logged-out token can still be used.
+ * <p>
+ * A token looks like {@code base64url(keyId:issued:expiry:nonce:username).base64url(mac)},
+ * with both times in epoch milliseconds; the random nonce keeps a new login
+ * from reusing a token that was just revoked.
+ * Keys are looked up by id, so a new signing key can be rolled out while
+ * tokens signed with the old one stay valid until they expire.
+ * <p>
+ * Base64 has more than one spelling for some byte strings, so only the
+ * canonical encoding of a token is accepted, and revocations are keyed by
+ * the token's MAC bytes rather than its text.
+ */
+public class SignedTokenAuthDAO implements AuthDAO {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final Map<String, Mac> keys;
+    private final String signingKeyId;
+    private final Duration lifetime;
+    private final Clock clock;
+    private final ConcurrentHashMap<ByteBuffer, Long> revoked = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private volatile long notAfterIssued = Long.MIN_VALUE;
+
+    /**
+     * @param keys         secret keys by key id; at least 32 bytes each
+     * @param signingKeyId which key new tokens are signed with
+     * @param lifetime     how long a token stays valid
+     */
+    public SignedTokenAuthDAO(Map<String, byte[]> keys, String signingKeyId, Duration lifetime) {
+        this(keys, signingKeyId, lifetime, Clock.systemUTC());
+    }
+
+    SignedTokenAuthDAO(Map<String, byte[]> keys, String signingKeyId, Duration lifetime, Clock clock) {
+        if(!keys.containsKey(signingKeyId)){
+            throw new IllegalArgumentException("No key with id " + signingKeyId);
+        }
+        this.keys = new ConcurrentHashMap<>();
+        for(Map.Entry<String, byte[]> key : keys.entrySet()){
+            if(key.getValue().length < 32){
+                throw new IllegalArgumentException("Key " + key.getKey() + " is shorter than 32 bytes");
+            }
+            if(key.getKey().contains(":")){
+                throw new IllegalArgumentException("Key id " + key.getKey() + " contains ':'");
+            }
+            this.keys.put(key.getKey(), newMac(key.getValue()));
+        }
+        this.signingKeyId = signingKeyId;
+        this.lifetime = lifetime;
+        this.clock = clock;
+    }
+
+    /**
+     * Issues a signed token for a user
+     *
+     * @param username who the token is for
+     * @return the token and username
+     */
+    public AuthData issue(String username) {
+        long issued = clock.millis();
+        long expiry = issued + lifetime.toMillis();
+        byte[] nonce = new byte[8];
+        random.nextBytes(nonce);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = signingKeyId + ":" + issued + ":" + expiry + ":" + encoder.encodeToString(nonce) + ":"
+                + username;
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        String token = encoder.encodeToString(payloadBytes) + "."
+                + encoder.encodeToString(sign(keys.get(signingKeyId), payloadBytes));
+        return new AuthData(token, username);
+    }
+
+    /**
+     * Signed tokens are not stored, so this only checks that the token is one
+     * this DAO could have issued
+     *
+     * @throws DataAccessException if the token is not valid
+     */
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        AuthData valid = getAuth(auth.authToken());
+        if(valid == null || !valid.username().equals(auth.username())){
+            throw new DataAccessException("auth token was not issued by this server");
+        }
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) {
+        Claims claims = verify(authToken);
+        if(claims == null || clock.millis() >= claims.expiry() || claims.issued() <= notAfterIssued
+                || revoked.containsKey(claims.mac())){
+            return null;
+        }
+        return new AuthData(authToken, claims.username());
+    }
+
+    /**
+     * Revokes a token until it expires
+     */
+    @Override
+    public void deleteAuth(String authToken) {
+        long now = clock.millis();
+        if(revoked.size() > PURGE_THRESHOLD){
+            revoked.values().removeIf(expiry -> expiry <= now);
+        }
+        Claims claims = verify(authToken);
+        if(claims != null && claims.expiry() > now){
+            revoked.put(claims.mac(), claims.expiry());
+        }
+    }
+
+    /**
+     * Rejects every token issued so far, including any issued in the same
+     * millisecond, on this node only; revocations are kept
+     */
+    @Override
+    public synchronized void clear() {
+        notAfterIssued = Math.max(notAfterIssued, clock.millis());
+    }
+
+    /**
+     * Checks a token's signature and reads its fields, without looking at
+     * expiry or revocation
+     *
+     * @return the token's fields, or null if it is malformed, not canonically
+     * encoded, or the signature is wrong
+     */
+    private Claims verify(String authToken) {
+        int dot = authToken == null ? -1 : authToken.indexOf('.');
+        if(dot < 0){
+            return null;
+        }
+        byte[] payloadBytes;
+        byte[] mac;
+        try {
+            payloadBytes = Base64.getUrlDecoder().decode(authToken.substring(0, dot));
+            mac = Base64.getUrlDecoder().decode(authToken.substring(dot + 1));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        if(!authToken.equals(encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(mac))){
+            return null;
+        }
+
+        String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split(":", 5);
+        if(fields.length != 5){
+            return null;
+        }
+        Mac key = keys.get(fields[0]);
+        if(key == null || !MessageDigest.isEqual(mac, sign(key, payloadBytes))){
+            return null;
+        }
+        try {
+            return new Claims(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[4], ByteBuffer.wrap(mac));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static Mac newMac(byte[] key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ALGORITHM + " is not available", ex);
+        }
+    }
+
+    /**
+     * Macs aren't thread safe, so each call signs with a copy of the
+     * initialized one, which is cheaper than initializing a new one
+     */
+    private static byte[] sign(Mac key, byte[] payload) {
+        try {
+            Mac mac = (Mac) key.clone();
+            return mac.doFinal(payload);
+        } catch (CloneNotSupportedException ex) {
+            throw new IllegalStateException(ALGORITHM + " can't be cloned", ex);
+        }
+    }
+
+    private record Claims(long issued, long expiry, String username, ByteBuffer mac) {
+    }
+}
@@ -0,0 +1,26 @@
+package dataaccess;
+
+import model.UserData;
+
+/**
+ * Stores registered users
+ */
+public interface UserDAO {
+
+    /**
+     * Stores a new user
+     *
+     * @return false if the username is already taken
+     */
+    boolean createUser(UserData user) throws DataAccessException;
+
+    /**
+     * @return the user, or null if no user has that name
+     */
+    UserData getUser(String username) throws DataAccessException;
+
+    /**
+     * Removes every user
+     */
+    void clear() throws DataAccessException;
+}
@@ -0,0 +1,302 @@
+package server;
+
+import chess.ChessGame;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import dataaccess.AuthDAO;
+import dataaccess.DataAccessException;
+import dataaccess.UserDAO;
+import io.javalin.Javalin;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.Context;
+import io.javalin.http.ForbiddenResponse;
+import io.javalin.http.HttpResponseException;
+import io.javalin.http.UnauthorizedResponse;
+import model.AuthData;
+import model.GameData;
+import model.GamePage;
+import model.GameSummary;
+import model.TimeControl;
+import model.UserData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Handles the HTTP API: registering, logging in and out, and creating,
+ * listing and joining games. A game is timed when it is created with a
+ * {@code timeControl} of {@code baseMillis} and {@code incrementMillis}. Request and response bodies are JSON, and every
+ * error is answered with {@code {"message": "Error: ..."}}.
+ * <p>
+ * Passwords are hashed and checked on the {@link PasswordHasher}'s pool, and
+ * the handler hands its future to Javalin, so no request thread waits on
+ * bcrypt. When that pool's queue is full the server answers 503.
+ */
+public class ApiHandler {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final long LISTING_CACHE_MILLIS = 5_000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ApiHandler.class);
+
+    private final Gson gson = new Gson();
+    private final ResponseCache listings = new ResponseCache(LISTING_CACHE_MILLIS);
+    private final UserDAO users;
+    private final AuthDAO auths;
+    private final GameRegistry games;
+    private final PasswordHasher hasher;
+
+    public ApiHandler(UserDAO users, AuthDAO auths, GameRegistry games, PasswordHasher hasher) {
+        this.users = users;
+        this.auths = auths;
+        this.games = games;
+        this.hasher = hasher;
+    }
+
+    /**
+     * Adds the endpoints and their exception handlers to a server
+     */
+    public void register(Javalin javalin) {
+        javalin.delete("/db", this::clear);
+        javalin.post("/user", this::register);
+        javalin.post("/session", this::login);
+        javalin.delete("/session", this::logout);
+        javalin.get("/game", this::listGames);
+        javalin.post("/game", this::createGame);
+        javalin.put("/game", this::joinGame);
+
+        javalin.exception(HttpResponseException.class, (ex, ctx) -> error(ctx, ex.getStatus(), ex.getMessage()));
+        javalin.exception(DataAccessException.class, (ex, ctx) -> {
+            LOG.error("Database error on {} {}", ctx.method(), ctx.path(), ex);
+            error(ctx, 500, ex.getMessage());
+        });
+    }
+
+    private void clear(Context ctx) throws DataAccessException {
+        games.clear();
+        listings.clear();
+        auths.clear();
+        users.clear();
+        json(ctx, Map.of());
+    }
+
+    private void register(Context ctx) {
+        var request = body(ctx, UserData.class);
+        if(request.username() == null || request.password() == null || request.email() == null){
+            throw new BadRequestResponse("bad request");
+        }
+        CompletableFuture<String> hashed = hasher.hash(request.password());
+        ctx.future(() -> hashed.thenAccept(hash -> unchecked(() -> {
+            if(!users.createUser(new UserData(request.username(), hash, request.email()))){
+                throw new ForbiddenResponse("already taken");
+            }
+            json(ctx, newSession(request.username()));
+        })));
+    }
+
+    private void login(Context ctx) throws DataAccessException {
+        var request = body(ctx, LoginRequest.class);
+        if(request.username() == null || request.password() == null){
+            throw new BadRequestResponse("bad request");
+        }
+        UserData user = users.getUser(request.username());
+        if(user == null){
+            throw new UnauthorizedResponse("unauthorized");
+        }
+        CompletableFuture<Boolean> verified = hasher.verify(request.password(), user.password());
+        ctx.future(() -> verified.thenAccept(matches -> unchecked(() -> {
+            if(!matches){
+                throw new UnauthorizedResponse("unauthorized");
+            }
+            json(ctx, newSession(user.username()));
+        })));
+    }
+
+    private void logout(Context ctx) throws DataAccessException {
+        AuthData auth = authorize(ctx);
+        auths.deleteAuth(auth.authToken());
+        json(ctx, Map.of());
+    }
+
+    /**
+     * Lists every game, or with any of the {@code cursor}, {@code pageSize}
+     * or {@code filter} query parameters one page of them from
+     * {@link GameRegistry#listGames}, along with the cursor for the next page.
+     * {@code filter} may be repeated or comma separated, e.g. {@code filter=OPEN,MINE}.
+     * <p>
+     * A client that already has the current listing gets a 304, and clients
+     * asking for the same listing at once share one serialized response.
+     */
+    private void listGames(Context ctx) throws DataAccessException {
+        AuthData auth = authorize(ctx);
+        String cursor = ctx.queryParam("cursor");
+        String size = ctx.queryParam("pageSize");
+        boolean paged = cursor != null || size != null || ctx.queryParam("filter") != null;
+        EnumSet<GameRegistry.Filter> filters = EnumSet.noneOf(GameRegistry.Filter.class);
+        int pageSize;
+        try {
+            for(String filter : ctx.queryParams("filter")){
+                for(String name : filter.split(",")){
+                    if(!name.isBlank()){
+                        filters.add(GameRegistry.Filter.valueOf(name.trim().toUpperCase()));
+                    }
+                }
+            }
+            pageSize = size == null ? DEFAULT_PAGE_SIZE : Integer.parseInt(size);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestResponse("bad request");
+        }
+
+        if(ETags.listingNotModified(ctx, games)){
+            return;
+        }
+        // read after the tag, so the body sent is never older than the tag
+        long version = games.listingVersion();
+        // only MINE makes the body depend on who is asking
+        String key = !paged ? "games" : "games?" + ctx.queryString()
+                + (filters.contains(GameRegistry.Filter.MINE) ? "&user=" + auth.username() : "");
+        try {
+            listings.send(ctx, key, version, () -> {
+                if(!paged){
+                    return new ListGamesResult(allGames(), null);
+                }
+                GamePage page = games.listGames(cursor, pageSize, filters, auth.username());
+                return new ListGamesResult(page.games(), page.nextCursor());
+            });
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestResponse("bad request");
+        }
+    }
+
+    private List<GameSummary> allGames() {
+        List<GameSummary> listed = new ArrayList<>();
+        for(GameData game : games.list()){
+            listed.add(new GameSummary(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(),
+                    games.isFinished(game.gameID())));
+        }
+        return listed;
+    }
+
+    private void createGame(Context ctx) throws DataAccessException {
+        authorize(ctx);
+        var request = body(ctx, CreateGameRequest.class);
+        if(request.gameName() == null || request.gameName().isBlank()){
+            throw new BadRequestResponse("bad request");
+        }
+        TimeControl timeControl = null;
+        if(request.timeControl() != null){
+            Long base = request.timeControl().baseMillis();
+            Long increment = request.timeControl().incrementMillis();
+            try {
+                timeControl = new TimeControl(base == null ? 0 : base, increment == null ? 0 : increment);
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequestResponse("bad time control");
+            }
+        }
+        json(ctx, new CreateGameResult(games.create(request.gameName(), timeControl).gameID()));
+    }
+
+    private void joinGame(Context ctx) throws DataAccessException {
+        AuthData auth = authorize(ctx);
+        var request = body(ctx, JoinGameRequest.class);
+        if(request.playerColor() == null || request.gameID() == null || games.get(request.gameID()) == null){
+            throw new BadRequestResponse("bad request");
+        }
+        if(!games.join(request.gameID(), request.playerColor(), auth.username())){
+            throw new ForbiddenResponse("already taken");
+        }
+        json(ctx, Map.of());
+    }
+
+    /**
+     * @return the caller's auth data
+     * @throws UnauthorizedResponse if the authorization header isn't a valid token
+     */
+    private AuthData authorize(Context ctx) throws DataAccessException {
+        AuthData auth = auths.getAuth(ctx.header("authorization"));
+        if(auth == null){
+            throw new UnauthorizedResponse("unauthorized");
+        }
+        return auth;
+    }
+
+    private AuthData newSession(String username) throws DataAccessException {
+        var auth = new AuthData(UUID.randomUUID().toString(), username);
+        auths.createAuth(auth);
+        return auth;
+    }
+
+    /**
+     * @throws BadRequestResponse if the body is missing or isn't a JSON object of that type
+     */
+    private <T> T body(Context ctx, Class<T> type) {
+        T request;
+        try {
+            request = gson.fromJson(ctx.body(), type);
+        } catch (JsonParseException ex) {
+            throw new BadRequestResponse("bad request");
+        }
+        if(request == null){
+            throw new BadRequestResponse("bad request");
+        }
+        return request;
+    }
+
+    private void json(Context ctx, Object body) {
+        ctx.contentType("application/json");
+        ctx.result(gson.toJson(body));
+    }
+
+    private void error(Context ctx, int status, String message) {
+        ctx.status(status);
+        json(ctx, Map.of("message", "Error: " + message));
+    }
+
+    /**
+     * Runs database work inside a future's callback, which can't throw
+     * checked exceptions; Javalin unwraps the {@link CompletionException} and
+     * passes the cause to the exception handlers
+     */
+    private static void unchecked(DataAccessAction action) {
+        try {
+            action.run();
+        } catch (DataAccessException ex) {
+            throw new CompletionException(ex);
+        }
+    }
+
+    private interface DataAccessAction {
+        void run() throws DataAccessException;
+    }
+
+    private record LoginRequest(String username, String password) {
+    }
+
+    /**
+     * @param timeControl each player's time, or null for an untimed game
+     */
+    private record CreateGameRequest(String gameName, TimeControlRequest timeControl) {
+    }
+
+    /**
+     * The time control as sent, so a bad one is answered with 400 rather
+     * than failing inside Gson
+     */
+    private record TimeControlRequest(Long baseMillis, Long incrementMillis) {
+    }
+
+    private record CreateGameResult(int gameID) {
+    }
+
+    private record JoinGameRequest(ChessGame.TeamColor playerColor, Integer gameID) {
+    }
+
+    private record ListGamesResult(List<GameSummary> games, String nextCursor) {
+    }
+}
@@ -0,0 +1,102 @@
+package server;
+
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+
+/**
+ * Conditional GET support built on the version counters in {@link GameRegistry}.
+ * <p>
+ * A handler calls one of the check methods before doing any work. If the
+ * client already has the current version the response is finished as a 304
+ * and the handler returns without touching the database or serializing
+ * anything; otherwise the ETag header is set and the handler carries on.
+ * Tags include the registry's epoch, so they never match across a restart or
+ * between server nodes. They are weak tags: a version names the content, not
+ * the bytes, and the same version may be sent gzipped or as plain JSON.
+ * <pre>
+ * if(ETags.gameNotModified(ctx, registry, gameID)) {
+ *     return;
+ * }
+ * </pre>
+ */
+public class ETags {
+
+    private ETags() {}
+
+    /**
+     * Checks a request for the game listing
+     *
+     * @return true if a 304 was sent and the handler should stop
+     */
+    public static boolean listingNotModified(Context ctx, GameRegistry registry) {
+        return notModified(ctx, tag(registry.epoch() + "-l", registry.listingVersion()));
+    }
+
+    /**
+     * Checks a request for one game's state
+     *
+     * @return true if a 304 was sent and the handler should stop
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public static boolean gameNotModified(Context ctx, GameRegistry registry, int gameID) {
+        return notModified(ctx, tag(registry.epoch() + "-g" + gameID + "-", registry.gameVersion(gameID)));
+    }
+
+    /**
+     * Compares a request's If-None-Match header with the current tag
+     *
+     * @param ctx     the request
+     * @param current the resource's current ETag, including quotes
+     * @return true if a 304 was sent and the handler should stop
+     */
+    public static boolean notModified(Context ctx, String current) {
+        ctx.header("ETag", current);
+        addVary(ctx, "Authorization");
+        String ifNoneMatch = ctx.header("If-None-Match");
+        if(ifNoneMatch == null || !matches(ifNoneMatch, current)){
+            return false;
+        }
+        ctx.status(HttpStatus.NOT_MODIFIED);
+        return true;
+    }
+
+    /**
+     * Adds a request header to the response's Vary header, keeping any that
+     * an earlier step already listed
+     */
+    public static void addVary(Context ctx, String header) {
+        String vary = ctx.res().getHeader("Vary");
+        if(vary == null || vary.isBlank()){
+            ctx.header("Vary", header);
+            return;
+        }
+        for(String listed : vary.split(",")){
+            if(listed.trim().equalsIgnoreCase(header) || listed.trim().equals("*")){
+                return;
+            }
+        }
+        ctx.header("Vary", vary + ", " + header);
+    }
+
+    private static String tag(String prefix, long version) {
+        return "W/\"" + prefix + version + "\"";
+    }
+
+    /**
+     * Compares tags the weak way, ignoring any W/ prefix on either side
+     */
+    private static boolean matches(String ifNoneMatch, String current) {
+        String opaque = stripWeak(current);
+        for(String candidate : ifNoneMatch.split(",")){
+            String tag = candidate.trim();
+            if(stripWeak(tag).equals(opaque) || tag.equals("*")){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
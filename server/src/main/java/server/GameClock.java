@@ -0,0 +1,81 @@
+package server;
+
+import chess.ChessGame;
+import model.ClockTimes;
+import model.TimeControl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Both players' clocks in one timed game; callers hold the game's lock.
+ * <p>
+ * Nothing ticks: the clock only remembers when the current turn started, and
+ * the running side's time is worked out from that whenever it is asked for.
+ * Neither clock runs until white has made the first move.
+ */
+class GameClock {
+    private final TimeControl control;
+    private final long incrementNanos;
+    private long whiteNanos;
+    private long blackNanos;
+    private long turnStarted;
+    private boolean running;
+
+    GameClock(TimeControl control) {
+        this.control = control;
+        this.incrementNanos = TimeUnit.MILLISECONDS.toNanos(control.incrementMillis());
+        this.whiteNanos = TimeUnit.MILLISECONDS.toNanos(control.baseMillis());
+        this.blackNanos = whiteNanos;
+    }
+
+    TimeControl control() {
+        return control;
+    }
+
+    /**
+     * @return true once the first move has started the clocks
+     */
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return how much time a player has left at a moment, which is zero or
+     * less once they have run out
+     */
+    long remainingNanos(ChessGame.TeamColor color, ChessGame.TeamColor toMove, long now) {
+        long remaining = color == ChessGame.TeamColor.WHITE ? whiteNanos : blackNanos;
+        return running && color == toMove ? remaining - (now - turnStarted) : remaining;
+    }
+
+    /**
+     * Ends a player's turn: charges them for it, adds the increment and
+     * starts the other player's clock
+     *
+     * @param mover the player who just moved
+     * @param now   when they moved
+     */
+    void press(ChessGame.TeamColor mover, long now) {
+        long left = remainingNanos(mover, mover, now) + incrementNanos;
+        if(mover == ChessGame.TeamColor.WHITE){
+            whiteNanos = left;
+        } else {
+            blackNanos = left;
+        }
+        turnStarted = now;
+        running = true;
+    }
+
+    /**
+     * @return both players' remaining time at a moment, rounded down to
+     * milliseconds and never below zero
+     */
+    ClockTimes times(ChessGame.TeamColor toMove, long now) {
+        return new ClockTimes(millis(remainingNanos(ChessGame.TeamColor.WHITE, toMove, now)),
+                millis(remainingNanos(ChessGame.TeamColor.BLACK, toMove, now)));
+    }
+
+    private static long millis(long nanos) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+}
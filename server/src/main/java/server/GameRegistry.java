@@ -0,0 +1,632 @@
+package server;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import model.GameData;
+import model.GamePage;
+import model.GameSummary;
+import model.TimeControl;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMessage;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the live games on this server, keyed by gameID.
+ * <p>
+ * Each game has its own lock, so joins and moves on different games never
+ * wait on each other and the time a move takes doesn't grow with the number
+ * of games. Listing takes no locks at all: every game's {@link GameData} is
+ * replaced, never changed in place, so a listing sees each game either
+ * before or after a join. The {@link ChessGame} inside is mutable, so read it
+ * through {@link #withGame(int, Function)} when a consistent board matters.
+ * <p>
+ * Games are also indexed in gameID order, so
+ * {@link #listGames(String, int, Set, String)} can start a page right after
+ * the cursor without walking the earlier games.
+ * <p>
+ * Every game has a version that goes up whenever it is joined or moved in,
+ * and the registry has a listing version that goes up whenever a game is
+ * created or its summary changes. Handlers use these as ETags to answer
+ * repeat requests without reading or serializing anything. The counters
+ * start over with every registry, so each registry also has a random
+ * {@link #epoch()} that tags must include, or a restarted server or another
+ * node could hand out the same tag for different content.
+ * <p>
+ * Every event that changes a game, a move or a player resigning, leaving
+ * or running out of time, gets the game's next sequence number. Each game
+ * remembers its last {@value #REPLAY_EVENTS} events in a ring buffer, so a
+ * client that reconnects after a short drop can be sent just the events it
+ * missed with {@link #eventsSince(int, int)} instead of the whole game.
+ * <p>
+ * A game created with a {@link TimeControl} keeps a clock for each player,
+ * charged on every move. The registry never watches the clocks itself: a
+ * player who has run out can't move, and whoever schedules timeouts asks
+ * {@link #millisToFlag(int)} when to call {@link #flag(int)} to end the game.
+ * <p>
+ * When several server nodes share the games, each node's registry holds only
+ * the games created on it, and hands out gameIDs from its own share of the
+ * numbers: node {@code i} of {@code n} uses {@code i + 1}, {@code i + 1 + n},
+ * and so on. Any node can then tell from a gameID alone which node
+ * {@link #owns(int)} the game.
+ */
+public class GameRegistry {
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int REPLAY_EVENTS = 32;
+
+    /**
+     * Restrictions a game listing can apply; a game must match all of them
+     */
+    public enum Filter {
+        /** at least one seat is open */
+        OPEN,
+        /** the requesting user is seated in the game */
+        MINE,
+        /** the game has ended */
+        FINISHED
+    }
+
+    private final ConcurrentHashMap<Integer, LiveGame> games = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, LiveGame> gamesInOrder = new ConcurrentSkipListMap<>();
+    private final int node;
+    private final int nodes;
+    private final AtomicInteger nextGameID;
+    private final AtomicLong listingVersion = new AtomicLong();
+    private final LongSupplier nanoTime;
+    private final String epoch = Long.toString(new SecureRandom().nextLong() >>> 1, 36);
+
+    public GameRegistry() {
+        this(0, 1);
+    }
+
+    /**
+     * @param node  this node's index, from 0
+     * @param nodes how many nodes share the games
+     * @throws IllegalArgumentException unless {@code 0 <= node < nodes}
+     */
+    public GameRegistry(int node, int nodes) {
+        this(node, nodes, System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime where clocks read the time, so tests can move it by hand
+     */
+    GameRegistry(LongSupplier nanoTime) {
+        this(0, 1, nanoTime);
+    }
+
+    private GameRegistry(int node, int nodes, LongSupplier nanoTime) {
+        if(node < 0 || node >= nodes){
+            throw new IllegalArgumentException("Node " + node + " isn't one of " + nodes + " nodes");
+        }
+        this.node = node;
+        this.nodes = nodes;
+        this.nanoTime = nanoTime;
+        nextGameID = new AtomicInteger(node + 1);
+    }
+
+    /**
+     * Creates a new untimed game with both seats open
+     *
+     * @param gameName name for the game
+     * @return the created game
+     */
+    public GameData create(String gameName) {
+        return create(gameName, null);
+    }
+
+    /**
+     * Creates a new game with both seats open
+     *
+     * @param gameName    name for the game
+     * @param timeControl each player's time, or null for an untimed game
+     * @return the created game
+     */
+    public GameData create(String gameName, TimeControl timeControl) {
+        int gameID = nextGameID.getAndAdd(nodes);
+        GameData data = new GameData(gameID, null, null, gameName, new ChessGame());
+        LiveGame live = new LiveGame(data, timeControl == null ? null : new GameClock(timeControl));
+        games.put(gameID, live);
+        gamesInOrder.put(gameID, live);
+        listingVersion.incrementAndGet();
+        return data;
+    }
+
+    /**
+     * @return true if a game with this id would be created on this node,
+     * whether or not it exists
+     */
+    public boolean owns(int gameID) {
+        return gameID > node && (gameID - node - 1) % nodes == 0;
+    }
+
+    /**
+     * @return a random id for this registry, which the version counters are
+     * only meaningful alongside
+     */
+    public String epoch() {
+        return epoch;
+    }
+
+    /**
+     * @return the listing version, which changes whenever any game summary does
+     */
+    public long listingVersion() {
+        return listingVersion.get();
+    }
+
+    /**
+     * @return the game's version, which changes whenever the game does
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public long gameVersion(int gameID) {
+        return find(gameID).version;
+    }
+
+    /**
+     * @return the game, or null if there is no game with that id
+     */
+    public GameData get(int gameID) {
+        LiveGame live = games.get(gameID);
+        return live == null ? null : live.data;
+    }
+
+    /**
+     * @return every game, in gameID order
+     */
+    public Collection<GameData> list() {
+        ArrayList<GameData> list = new ArrayList<>(games.size());
+        for(LiveGame live : gamesInOrder.values()){
+            list.add(live.data);
+        }
+        return list;
+    }
+
+    /**
+     * Lists one page of games as lobby summaries, in gameID order
+     *
+     * @param cursor   null for the first page, otherwise the nextCursor of the previous page
+     * @param pageSize how many games to return, capped at {@value #MAX_PAGE_SIZE}
+     * @param filters  restrictions every listed game must match, may be empty
+     * @param username the requesting user, used by {@link Filter#MINE}
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is not one this registry handed out
+     */
+    public GamePage listGames(String cursor, int pageSize, Set<Filter> filters, String username) {
+        int limit = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        var remaining = cursor == null
+                ? gamesInOrder.values()
+                : gamesInOrder.tailMap(decodeCursor(cursor), false).values();
+
+        ArrayList<GameSummary> page = new ArrayList<>(limit);
+        for(LiveGame live : remaining){
+            GameSummary summary = live.summary;
+            if(!matches(summary, filters, username)){
+                continue;
+            }
+            if(page.size() == limit){
+                return new GamePage(page, encodeCursor(page.get(limit - 1).gameID()));
+            }
+            page.add(summary);
+        }
+        return new GamePage(page, null);
+    }
+
+    /**
+     * Seats a player in a game
+     *
+     * @param gameID   the game to join
+     * @param color    which seat to take
+     * @param username the player taking it
+     * @return false if the seat is already taken
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public boolean join(int gameID, ChessGame.TeamColor color, String username) {
+        LiveGame live = find(gameID);
+        live.lock.lock();
+        try {
+            GameData data = live.data;
+            if(color == ChessGame.TeamColor.WHITE){
+                if(data.whiteUsername() != null){
+                    return false;
+                }
+                live.update(new GameData(gameID, username, data.blackUsername(), data.gameName(), data.game()));
+            } else {
+                if(data.blackUsername() != null){
+                    return false;
+                }
+                live.update(new GameData(gameID, data.whiteUsername(), username, data.gameName(), data.game()));
+            }
+            live.version++;
+            listingVersion.incrementAndGet();
+            return true;
+        } finally {
+            live.lock.unlock();
+        }
+    }
+
+    /**
+     * Makes a move in a game, whoever's turn it is
+     *
+     * @param gameID the game to move in
+     * @param move   the move to make
+     * @return the move with its sequence number and the game's status after it
+     * @throws InvalidMoveException     if the move is not legal or the game is over
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public MoveMessage makeMove(int gameID, ChessMove move) throws InvalidMoveException {
+        return makeMove(gameID, null, move);
+    }
+
+    /**
+     * Makes a move for a player, checking that they hold the seat whose turn it is
+     *
+     * @param gameID   the game to move in
+     * @param username the player moving, or null to skip the seat check
+     * @param move     the move to make
+     * @return the move with its sequence number and the game's status after it
+     * @throws InvalidMoveException     if the move is not legal, it isn't the
+     *                                  player's turn, the game is over, or the
+     *                                  player has run out of time
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public MoveMessage makeMove(int gameID, String username, ChessMove move) throws InvalidMoveException {
+        LiveGame live = find(gameID);
+        live.lock.lock();
+        try {
+            if(live.finished){
+                throw new InvalidMoveException("The game is over");
+            }
+            ChessGame game = live.data.game();
+            if(username != null && !username.equals(seat(live.data, game.getTeamTurn()))){
+                throw new InvalidMoveException("It isn't your turn");
+            }
+            ChessGame.TeamColor mover = game.getTeamTurn();
+            long now = nanoTime.getAsLong();
+            if(live.clock != null && live.clock.remainingNanos(mover, mover, now) <= 0){
+                throw new InvalidMoveException("You ran out of time");
+            }
+            game.makeMove(move);
+            if(live.clock != null){
+                live.clock.press(mover, now);
+            }
+            live.version++;
+            ChessGame.TeamColor next = game.getTeamTurn();
+            MoveMessage.Status status;
+            if(game.isInCheckmate(next)){
+                status = MoveMessage.Status.CHECKMATE;
+            } else if(game.isInStalemate(next)){
+                status = MoveMessage.Status.STALEMATE;
+            } else {
+                status = game.isInCheck(next) ? MoveMessage.Status.CHECK : MoveMessage.Status.IN_PROGRESS;
+            }
+            if(status == MoveMessage.Status.CHECKMATE || status == MoveMessage.Status.STALEMATE){
+                finish(live);
+            }
+            MoveMessage moved = new MoveMessage(move, status, live.sequence + 1,
+                    live.clock == null ? null : live.clock.times(next, now));
+            record(live, moved);
+            return moved;
+        } finally {
+            live.lock.unlock();
+        }
+    }
+
+    /**
+     * Ends a game because a player resigned
+     *
+     * @param gameID   the game to resign
+     * @param username the player resigning
+     * @return the notification to broadcast, or null if the user isn't
+     * playing in the game or it is already over
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public NotificationMessage resign(int gameID, String username) {
+        LiveGame live = find(gameID);
+        live.lock.lock();
+        try {
+            if(live.finished || !(username.equals(live.data.whiteUsername())
+                    || username.equals(live.data.blackUsername()))){
+                return null;
+            }
+            live.version++;
+            finish(live);
+            live.ending = record(live, new NotificationMessage(username + " resigned", live.sequence + 1));
+            return live.ending;
+        } finally {
+            live.lock.unlock();
+        }
+    }
+
+    /**
+     * Frees any seat a user holds in a game, so someone else can take it
+     *
+     * @return the notification to broadcast, or null if the user held no seat
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public NotificationMessage leave(int gameID, String username) {
+        LiveGame live = find(gameID);
+        live.lock.lock();
+        try {
+            GameData data = live.data;
+            String white = username.equals(data.whiteUsername()) ? null : data.whiteUsername();
+            String black = username.equals(data.blackUsername()) ? null : data.blackUsername();
+            if(white == data.whiteUsername() && black == data.blackUsername()){
+                return null;
+            }
+            live.update(new GameData(gameID, white, black, data.gameName(), data.game()));
+            live.version++;
+            listingVersion.incrementAndGet();
+            return record(live, new NotificationMessage(username + " left the game", live.sequence + 1));
+        } finally {
+            live.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the game together with its sequence number, for a LOAD_GAME,
+     * or null if there is no game with that id
+     */
+    public LoadGameMessage load(int gameID) {
+        LiveGame live = games.get(gameID);
+        if(live == null){
+            return null;
+        }
+        live.lock.lock();
+        try {
+            ChessGame game = live.data.game();
+            return new LoadGameMessage(game.copy(), live.sequence, live.clock == null ? null
+                    : live.clock.times(game.getTeamTurn(), nanoTime.getAsLong()));
+        } finally {
+            live.lock.unlock();
+        }
+    }
+
+    /**
+     * Finds the events a client missed, for resuming without a full LOAD_GAME
+     *
+     * @param gameID       the game
+     * @param lastSequence the sequence number of the last event the client saw
+     * @return the MOVEs and notifications after lastSequence in order,
+     * possibly none, or null if the game no longer remembers all of them or
+     * the sequence is ahead of the game
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public List<ServerMessage> eventsSince(int gameID, int lastSequence) {
+        LiveGame live = find(gameID);
+        live.lock.lock();
+        try {
+            int missed = live.sequence - lastSequence;
+            if(lastSequence < 0 || missed < 0 || missed > REPLAY_EVENTS){
+                return null;
+            }
+            ArrayList<ServerMessage> events = new ArrayList<>(missed);
+            for(int sequence = lastSequence + 1; sequence <= live.sequence; sequence++){
+                events.add(live.recent[sequence % REPLAY_EVENTS]);
+            }
+            return events;
+        } finally {
+            live.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the notification that ended the game by resignation or time,
+     * which a LOAD_GAME alone can't show, or null if the game is still on or
+     * ended on the board
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public NotificationMessage ending(int gameID) {
+        return find(gameID).ending;
+    }
+
+    /**
+     * @return the game's time control, or null if it is untimed
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public TimeControl timeControl(int gameID) {
+        GameClock clock = find(gameID).clock;
+        return clock == null ? null : clock.control();
+    }
+
+    /**
+     * @return how long until the player to move runs out of time, rounded up
+     * to a millisecond, or -1 if no clock is running because the game is
+     * untimed, over, or hasn't had its first move
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public long millisToFlag(int gameID) {
+        LiveGame live = find(gameID);
+        if(live.clock == null){
+            return -1;
+        }
+        live.lock.lock();
+        try {
+            if(live.finished || !live.clock.isRunning()){
+                return -1;
+            }
+            ChessGame.TeamColor toMove = live.data.game().getTeamTurn();
+            long nanos = live.clock.remainingNanos(toMove, toMove, nanoTime.getAsLong());
+            return Math.max(0, (nanos + TimeUnit.MILLISECONDS.toNanos(1) - 1) / TimeUnit.MILLISECONDS.toNanos(1));
+        } finally {
+            live.lock.unlock();
+        }
+    }
+
+    /**
+     * Ends a game if the player to move has run out of time
+     *
+     * @return the notification to broadcast, or null if the game is untimed,
+     * already over, or the player to move still has time
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public NotificationMessage flag(int gameID) {
+        LiveGame live = find(gameID);
+        if(live.clock == null){
+            return null;
+        }
+        live.lock.lock();
+        try {
+            ChessGame.TeamColor toMove = live.data.game().getTeamTurn();
+            if(live.finished || !live.clock.isRunning()
+                    || live.clock.remainingNanos(toMove, toMove, nanoTime.getAsLong()) > 0){
+                return null;
+            }
+            live.version++;
+            finish(live);
+            String player = seat(live.data, toMove);
+            if(player == null){
+                player = toMove == ChessGame.TeamColor.WHITE ? "White" : "Black";
+            }
+            live.ending = record(live, new NotificationMessage(player + " ran out of time", live.sequence + 1));
+            return live.ending;
+        } finally {
+            live.lock.unlock();
+        }
+    }
+
+    /**
+     * @return true once the game has ended by checkmate, stalemate, resignation or time
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public boolean isFinished(int gameID) {
+        return find(gameID).finished;
+    }
+
+    /**
+     * Runs an action while holding a game's lock, so the game can't change
+     * underneath it
+     *
+     * @param gameID the game to use
+     * @param action what to do with the game
+     * @return what the action returned
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public <T> T withGame(int gameID, Function<GameData, T> action) {
+        LiveGame live = find(gameID);
+        live.lock.lock();
+        try {
+            return action.apply(live.data);
+        } finally {
+            live.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every game
+     */
+    public void clear() {
+        games.clear();
+        gamesInOrder.clear();
+        listingVersion.incrementAndGet();
+    }
+
+    private static boolean matches(GameSummary summary, Set<Filter> filters, String username) {
+        for(Filter filter : filters){
+            boolean match = switch (filter) {
+                case OPEN -> summary.whiteUsername() == null || summary.blackUsername() == null;
+                case MINE -> username != null && (username.equals(summary.whiteUsername())
+                        || username.equals(summary.blackUsername()));
+                case FINISHED -> summary.finished();
+            };
+            if(!match){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String encodeCursor(int gameID) {
+        byte[] text = ("g" + gameID).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text);
+    }
+
+    private static int decodeCursor(String cursor) {
+        String text;
+        try {
+            text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if(text.startsWith("g")){
+                return Integer.parseInt(text.substring(1));
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Bad cursor " + cursor, ex);
+        }
+        throw new IllegalArgumentException("Bad cursor " + cursor);
+    }
+
+    private static String seat(GameData data, ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? data.whiteUsername() : data.blackUsername();
+    }
+
+    /**
+     * Gives an event the game's next sequence number and remembers it for
+     * replay; callers hold the lock
+     */
+    private static <T extends ServerMessage> T record(LiveGame live, T event) {
+        live.sequence++;
+        live.recent[live.sequence % REPLAY_EVENTS] = event;
+        return event;
+    }
+
+    /**
+     * Marks a game over and republishes its summary; callers hold the lock
+     */
+    private void finish(LiveGame live) {
+        live.finished = true;
+        live.update(live.data);
+        listingVersion.incrementAndGet();
+    }
+
+    private LiveGame find(int gameID) {
+        LiveGame live = games.get(gameID);
+        if(live == null){
+            throw new IllegalArgumentException("No game with id " + gameID);
+        }
+        return live;
+    }
+
+    private static class LiveGame {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile GameData data;
+        private volatile GameSummary summary;
+        private volatile boolean finished;
+        private volatile long version;
+        private int sequence;
+        private final ServerMessage[] recent = new ServerMessage[REPLAY_EVENTS];
+        private volatile NotificationMessage ending;
+        private final GameClock clock;
+
+        private LiveGame(GameData data, GameClock clock) {
+            this.clock = clock;
+            update(data);
+        }
+
+        /**
+         * Replaces the game data and the listing summary built from it;
+         * callers hold the lock
+         */
+        private void update(GameData data) {
+            this.data = Objects.requireNonNull(data);
+            summary = new GameSummary(data.gameID(), data.whiteUsername(), data.blackUsername(),
+                    data.gameName(), finished);
+        }
+    }
+}
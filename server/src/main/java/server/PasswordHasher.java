@@ -0,0 +1,128 @@
+package server;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hashes and checks passwords with bcrypt on a dedicated pool of worker
+ * threads, one per core, instead of on the request thread.
+ * <p>
+ * A bcrypt call burns tens of milliseconds of CPU, so a burst of logins run
+ * on request threads would starve everything else. Here they wait in a
+ * bounded queue; when the queue is full the call fails straight away with a
+ * {@link RejectedExecutionException}, which the server answers with
+ * 503 Service Unavailable. Handlers can hand the returned future to
+ * {@code ctx.future(...)} so no request thread waits on the hash.
+ */
+public class PasswordHasher {
+    public static final int DEFAULT_COST = 10;
+
+    private final int cost;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor workers;
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param cost          bcrypt log rounds; each step up doubles the work
+     * @param queueCapacity how many hashes may wait for a worker before new ones are refused
+     */
+    public PasswordHasher(int cost, int queueCapacity) {
+        this(cost, queueCapacity, 0);
+    }
+
+    /**
+     * @param cost          bcrypt log rounds; each step up doubles the work
+     * @param queueCapacity how many hashes may wait for a worker before new ones are refused
+     * @param threads       how many hashes run at once; 0 for one per core
+     */
+    public PasswordHasher(int cost, int queueCapacity, int threads) {
+        if(threads == 0){
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        if(cost < 4 || cost > 31){
+            throw new IllegalArgumentException("bcrypt cost must be between 4 and 31");
+        }
+        this.cost = cost;
+        this.queueCapacity = queueCapacity;
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Hashes a password with a fresh salt
+     *
+     * @return a future for the bcrypt hash
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<String> hash(String password) {
+        return submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+    }
+
+    /**
+     * Checks a password against a stored hash
+     *
+     * @return a future that is true if the password matches
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<Boolean> verify(String password, String hash) {
+        return submit(() -> BCrypt.checkpw(password, hash));
+    }
+
+    /**
+     * @return how many hashes are waiting for a worker right now
+     */
+    public int queueDepth() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * @return the deepest the queue has been
+     */
+    public int queueHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    /**
+     * @return how many calls have been refused because the queue was full
+     */
+    public long rejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return how many more hashes can be queued before calls are refused
+     */
+    public int remainingCapacity() {
+        return queueCapacity - queueDepth();
+    }
+
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        CompletableFuture<T> result;
+        try {
+            result = CompletableFuture.supplyAsync(work, workers);
+        } catch (RejectedExecutionException ex) {
+            rejected.incrementAndGet();
+            throw ex;
+        }
+        highWaterMark.accumulateAndGet(workers.getQueue().size(), Math::max);
+        return result;
+    }
+}
@@ -0,0 +1,136 @@
+package server;
+
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket rate limiter keyed by client, used to keep one client from
+ * monopolizing endpoints that are cheap to call but expensive to serve.
+ * <p>
+ * Each bucket holds up to {@code capacity} tokens and refills at a steady
+ * rate. Rather than storing a token count and a refill time, a bucket is a
+ * single {@link AtomicLong} holding the time at which it will be full again
+ * (the generic cell rate algorithm, which behaves exactly like a token
+ * bucket). Taking a token is one compare-and-set, so requests never block
+ * each other.
+ * <p>
+ * Full buckets are swept out once the map grows past a threshold, and the
+ * threshold then moves to twice what survived, so a client rotating through
+ * addresses pays for each sweep with as many new buckets as it scans.
+ */
+public class RateLimiter {
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger cleanupAt = new AtomicInteger(CLEANUP_THRESHOLD);
+    private final AtomicInteger cleanups = new AtomicInteger();
+
+    /**
+     * @param capacity        how many requests a client can make at once
+     * @param tokensPerSecond how fast a client's allowance refills
+     */
+    public RateLimiter(int capacity, double tokensPerSecond) {
+        if(capacity < 1 || tokensPerSecond <= 0){
+            throw new IllegalArgumentException("Rate limit needs a capacity and refill rate above zero");
+        }
+        nanosPerToken = (long) (1_000_000_000L / tokensPerSecond);
+        burstNanos = nanosPerToken * capacity;
+    }
+
+    /**
+     * Takes a token for a request, limiting by remote address and, when the
+     * request carries one, by auth token. A request is charged to both buckets
+     * or neither: if the auth token's bucket refuses, the address's token is
+     * given back, so a client can't drain its neighbours' shared address with
+     * requests that never go ahead. A rejected request is answered with
+     * 429 Too Many Requests and a Retry-After header, and no later handlers run.
+     *
+     * @param ctx the request
+     * @return true if the request may go ahead
+     */
+    public boolean check(Context ctx) {
+        long now = System.nanoTime();
+        String ipKey = "ip:" + ctx.ip();
+        long wait = tryAcquire(ipKey, now);
+        String authToken = ctx.header("authorization");
+        if(wait == 0 && authToken != null){
+            wait = tryAcquire("auth:" + authToken, now);
+            if(wait != 0){
+                refund(ipKey);
+            }
+        }
+        if(wait == 0){
+            return true;
+        }
+        long seconds = Math.max(1, (wait + 999_999_999L) / 1_000_000_000L);
+        ctx.status(HttpStatus.TOO_MANY_REQUESTS);
+        ctx.header("Retry-After", Long.toString(seconds));
+        ctx.contentType("application/json");
+        ctx.result("{\"message\": \"Error: too many requests\"}");
+        ctx.skipRemainingHandlers();
+        return false;
+    }
+
+    /**
+     * Takes a token from a key's bucket
+     *
+     * @param key identifies the client
+     * @param now the current {@link System#nanoTime()}
+     * @return 0 if a token was taken, otherwise how many nanoseconds until one
+     * will be available
+     */
+    long tryAcquire(String key, long now) {
+        AtomicLong full = buckets.get(key);
+        if(full == null){
+            int limit = cleanupAt.get();
+            if(buckets.size() > limit && cleanupAt.compareAndSet(limit, Integer.MAX_VALUE)){
+                removeFullBuckets(now);
+            }
+            full = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while(true){
+            long current = full.get();
+            long next = Math.max(current, now) + nanosPerToken;
+            if(next - now > burstNanos){
+                return next - now - burstNanos;
+            }
+            if(full.compareAndSet(current, next)){
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire}
+     */
+    void refund(String key) {
+        AtomicLong full = buckets.get(key);
+        if(full != null){
+            full.addAndGet(-nanosPerToken);
+        }
+    }
+
+    /**
+     * @return how many times full buckets have been swept out
+     */
+    int cleanups() {
+        return cleanups.get();
+    }
+
+    /**
+     * Buckets that have completely refilled hold no information, so they can
+     * be dropped and recreated on the client's next request. The caller has
+     * claimed the sweep; the next one waits until the map doubles.
+     */
+    private void removeFullBuckets(long now) {
+        buckets.values().removeIf(full -> full.get() <= now);
+        cleanups.incrementAndGet();
+        cleanupAt.set(Math.max(CLEANUP_THRESHOLD, 2 * buckets.size()));
+    }
+}
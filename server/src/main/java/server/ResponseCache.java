@@ -0,0 +1,209 @@
+package server;
+
+import chess.ChessTypeAdapters;
+import com.google.gson.Gson;
+import io.javalin.http.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A short-lived cache of serialized JSON responses, so a game list or game
+ * state that many clients ask for in the same moment is serialized once and
+ * compressed at most once per encoding.
+ * <p>
+ * Entries are keyed by a resource name plus the resource's version from
+ * {@link GameRegistry}. Any mutation bumps the version, so a stale entry is
+ * never served; it is replaced on the next request. Entries also expire after
+ * a fixed time so the cache doesn't hold on to games nobody is asking for.
+ * <p>
+ * A miss is serialized outside the map's locks and then published, so a
+ * slow body never holds up requests for other keys that share its bin; two
+ * requests that miss together may both serialize, and one of them is kept.
+ * <p>
+ * The response is sent in whichever of gzip, deflate or plain JSON the
+ * request's Accept-Encoding rates highest, preferring gzip, then deflate, on
+ * a tie. Javalin leaves responses that already have a Content-Encoding alone,
+ * so the bytes are not compressed twice.
+ */
+public class ResponseCache {
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final Gson gson = ChessTypeAdapters.createGson();
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    /**
+     * @param ttlMillis how long an entry may be reused, even if its version is current
+     */
+    public ResponseCache(long ttlMillis) {
+        ttlNanos = ttlMillis * 1_000_000;
+    }
+
+    /**
+     * Sends a JSON response, serializing the body only if no current entry exists
+     *
+     * @param ctx     the request to answer
+     * @param key     names the resource, e.g. "game:12"; include anything that changes the body
+     * @param version the resource's current version
+     * @param body    builds the object to serialize, called only on a miss
+     */
+    public void send(Context ctx, String key, long version, Supplier<Object> body) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if(entry == null || !entry.isCurrent(version, now, ttlNanos)){
+            Entry built = new Entry(version, now, gson.toJson(body.get()).getBytes(StandardCharsets.UTF_8));
+            boolean stored = entry == null ? entries.putIfAbsent(key, built) == null : entries.replace(key, entry, built);
+            Entry raced = stored ? null : entries.get(key);
+            entry = raced != null && raced.isCurrent(version, now, ttlNanos) ? raced : built;
+            if(entries.size() > MAX_ENTRIES){
+                evictExpired(now);
+            }
+        }
+
+        ctx.contentType("application/json");
+        ETags.addVary(ctx, "Accept-Encoding");
+        switch (chooseEncoding(ctx.header("Accept-Encoding"))) {
+            case "gzip" -> {
+                ctx.header("Content-Encoding", "gzip");
+                ctx.result(entry.gzip());
+            }
+            case "deflate" -> {
+                ctx.header("Content-Encoding", "deflate");
+                ctx.result(entry.deflate());
+            }
+            default -> ctx.result(entry.json);
+        }
+    }
+
+    /**
+     * Drops the entry for a resource, e.g. when it is deleted
+     */
+    public void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Drops every entry
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private void evictExpired(long now) {
+        entries.values().removeIf(entry -> now - entry.created >= ttlNanos);
+        if(entries.size() > MAX_ENTRIES){
+            entries.clear();
+        }
+    }
+
+    /**
+     * Picks the coding the client rates highest. A coding the header doesn't
+     * name takes the rating of {@code *}; plain JSON is acceptable unless the
+     * header rules it out, but loses to any compression the client named.
+     *
+     * @return "gzip", "deflate" or "identity"
+     */
+    static String chooseEncoding(String acceptEncoding) {
+        if(acceptEncoding == null || acceptEncoding.isBlank()){
+            return "identity";
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double identity = -1;
+        double any = -1;
+        for(String part : acceptEncoding.split(",")){
+            String[] pieces = part.trim().split(";");
+            double q = quality(pieces);
+            switch (pieces[0].trim().toLowerCase()) {
+                case "gzip", "x-gzip" -> gzip = Math.max(gzip, q);
+                case "deflate" -> deflate = Math.max(deflate, q);
+                case "identity" -> identity = q;
+                case "*" -> any = q;
+                default -> { }
+            }
+        }
+        gzip = gzip < 0 ? Math.max(any, 0) : gzip;
+        deflate = deflate < 0 ? Math.max(any, 0) : deflate;
+        // identity is acceptable unless ruled out, but below anything named
+        identity = identity >= 0 ? identity : any == 0 ? 0 : Double.MIN_VALUE;
+        if(gzip > 0 && gzip >= deflate && gzip >= identity){
+            return "gzip";
+        }
+        if(deflate > 0 && deflate >= identity){
+            return "deflate";
+        }
+        return "identity";
+    }
+
+    /**
+     * @return the q parameter, 1 if it is missing and 0 if it can't be read
+     */
+    private static double quality(String[] pieces) {
+        for(int i = 1; i < pieces.length; i++){
+            String param = pieces[i].trim();
+            if(param.length() > 2 && param.substring(0, 2).equalsIgnoreCase("q=")){
+                try {
+                    double q = Double.parseDouble(param.substring(2));
+                    return q >= 0 && q <= 1 ? q : 0;
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static class Entry {
+        private final long version;
+        private final long created;
+        private final byte[] json;
+        private volatile byte[] gzip;
+        private volatile byte[] deflate;
+
+        private Entry(long version, long created, byte[] json) {
+            this.version = version;
+            this.created = created;
+            this.json = json;
+        }
+
+        private boolean isCurrent(long version, long now, long ttlNanos) {
+            return this.version == version && now - created < ttlNanos;
+        }
+
+        private byte[] gzip() {
+            byte[] bytes = gzip;
+            if(bytes == null){
+                bytes = compress(true);
+                gzip = bytes;
+            }
+            return bytes;
+        }
+
+        private byte[] deflate() {
+            byte[] bytes = deflate;
+            if(bytes == null){
+                bytes = compress(false);
+                deflate = bytes;
+            }
+            return bytes;
+        }
+
+        private byte[] compress(boolean useGzip) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 32);
+            try (OutputStream stream = useGzip ? new GZIPOutputStream(out) : new DeflaterOutputStream(out)) {
+                stream.write(json);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return out.toByteArray();
+        }
+    }
+}
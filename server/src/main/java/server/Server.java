@@ -0,0 +1,202 @@
+package server;
+
+import dataaccess.AuthDAO;
+import dataaccess.CachingAuthDAO;
+import dataaccess.MemoryAuthDAO;
+import dataaccess.MemoryUserDAO;
+import dataaccess.UserDAO;
+import io.javalin.*;
+import io.javalin.http.HandlerType;
+import io.javalin.http.HttpStatus;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import server.websocket.Connection;
+import server.websocket.ConnectionManager;
+import server.websocket.GameEventBroker;
+import server.websocket.GameEventBus;
+import server.websocket.Heartbeat;
+import server.websocket.SocketGameEventBus;
+import server.websocket.WebSocketHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+public class Server {
+    /**
+     * Set to true to run request and WebSocket handlers on virtual threads
+     */
+    public static final String VIRTUAL_THREADS_PROPERTY = "chess.server.virtualThreads";
+
+    private static final Logger LOG = LoggerFactory.getLogger(Server.class);
+
+    private final Javalin javalin;
+    private final ServerProfile profile;
+    private final GameRegistry games;
+    private final AuthDAO auths;
+    private final UserDAO users = new MemoryUserDAO();
+    private final TimerWheel timers = TimerWheel.start("timer-wheel", 1);
+    private final PasswordHasher hasher;
+    private final ConnectionManager connections;
+    private GameEventBroker broker;
+    private GameEventBus bus;
+    private int port;
+
+    public Server() {
+        this(ServerProfile.load());
+    }
+
+    /**
+     * @param useVirtualThreads run each HTTP request and WebSocket message on its
+     *                          own virtual thread instead of Jetty's bounded
+     *                          platform thread pool, so handlers blocked on the
+     *                          database don't cap how many clients are served
+     */
+    public Server(boolean useVirtualThreads) {
+        this(ServerProfile.load().withVirtualThreads(useVirtualThreads));
+    }
+
+    /**
+     * @param profile thread pool, connection and protocol settings
+     */
+    public Server(ServerProfile profile) {
+        this.profile = profile;
+        games = new GameRegistry(profile.nodeIndex(), profile.nodeCount());
+        // every HTTP request and WebSocket command looks up its token, so the
+        // cache sits in front of whichever DAO actually stores them
+        AuthDAO storedAuths = new MemoryAuthDAO();
+        auths = profile.authCacheMillis() == 0 ? storedAuths
+                : new CachingAuthDAO(storedAuths, profile.authCacheMillis(), profile.authCacheEntries());
+        hasher = new PasswordHasher(profile.bcryptCost(), profile.hashQueueCapacity(), profile.hashThreads());
+        javalin = Javalin.create(config -> {
+            config.staticFiles.add("web");
+            config.useVirtualThreads = profile.virtualThreads();
+            config.http.maxRequestSize = profile.maxRequestSize();
+
+            var threads = new QueuedThreadPool(profile.maxThreads(), profile.minThreads(),
+                    (int) profile.threadIdleTimeoutMillis());
+            threads.setName("chess-server");
+            if(profile.virtualThreads()){
+                threads.setVirtualThreadsExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            }
+            config.jetty.threadPool = threads;
+
+            config.jetty.modifyHttpConfiguration(http -> {
+                http.setPersistentConnectionsEnabled(profile.keepAlive());
+                http.setRequestHeaderSize(profile.requestHeaderSize());
+                http.setIdleTimeout(profile.idleTimeoutMillis());
+            });
+            // Javalin only applies the port passed to start() to its own
+            // default connector, so this one reads the port set by run().
+            config.jetty.addConnector((jetty, http) -> {
+                var connector = profile.http2()
+                        ? new ServerConnector(jetty, new HttpConnectionFactory(http), new HTTP2CServerConnectionFactory(http))
+                        : new ServerConnector(jetty, new HttpConnectionFactory(http));
+                connector.setPort(port);
+                connector.setIdleTimeout(profile.idleTimeoutMillis());
+                connector.setAcceptQueueSize(profile.acceptQueueSize());
+                return connector;
+            });
+        });
+
+        // Registering, logging in and creating games hash passwords and write to
+        // the database, so a single client must not be able to call them in a loop.
+        rateLimit(HandlerType.POST, "/user", profile.userRateLimit().limiter());
+        rateLimit(HandlerType.POST, "/session", profile.sessionRateLimit().limiter());
+        rateLimit(HandlerType.POST, "/game", profile.gameRateLimit().limiter());
+
+        // Thrown when a bounded worker pool, such as the PasswordHasher's, is full.
+        javalin.exception(RejectedExecutionException.class, (ex, ctx) -> {
+            ctx.status(HttpStatus.SERVICE_UNAVAILABLE);
+            ctx.header("Retry-After", "1");
+            ctx.contentType("application/json");
+            ctx.result("{\"message\": \"Error: server busy, try again\"}");
+        });
+
+        connections = new ConnectionManager(ConnectionManager.DEFAULT_QUEUE_CAPACITY,
+                Connection.SlowConsumerPolicy.DISCONNECT, profile.observerWindowMillis());
+        Heartbeat heartbeat = profile.heartbeatMillis() <= 0 ? null
+                : new Heartbeat(connections, timers, profile.heartbeatMillis(), profile.sessionIdleTimeoutMillis());
+        openEventBus(profile.eventBus());
+        new WebSocketHandler(games, auths, connections, heartbeat, bus, timers).register(javalin, "/ws");
+        new ApiHandler(users, auths, games, hasher).register(javalin);
+    }
+
+    public int run(int desiredPort) {
+        port = desiredPort;
+        javalin.start();
+        LOG.info("Server profile: {}", profile.describe());
+        return javalin.port();
+    }
+
+    public void stop() {
+        javalin.stop();
+        connections.close();
+        timers.stop();
+        hasher.shutdown();
+        if(bus != null){
+            bus.close();
+        }
+        if(broker != null){
+            broker.close();
+        }
+    }
+
+    Javalin javalin() {
+        return javalin;
+    }
+
+    GameRegistry games() {
+        return games;
+    }
+
+    /**
+     * @return the pool that hashes and checks passwords for this server's handlers
+     */
+    PasswordHasher hasher() {
+        return hasher;
+    }
+
+    /**
+     * Connects to the other nodes' event broker, first starting it here for
+     * {@code embedded:port}
+     */
+    private void openEventBus(String eventBus) {
+        if(eventBus.isEmpty()){
+            return;
+        }
+        int colon = eventBus.lastIndexOf(':');
+        String host = eventBus.substring(0, colon);
+        int busPort = Integer.parseInt(eventBus.substring(colon + 1));
+        try {
+            if(host.equals("embedded")){
+                broker = GameEventBroker.start(busPort);
+                host = InetAddress.getLoopbackAddress().getHostAddress();
+                busPort = broker.port();
+            }
+            bus = new SocketGameEventBus(host, busPort);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can't connect to event broker " + eventBus, ex);
+        }
+    }
+
+    /**
+     * @param limiter the limit to apply, or null if it is turned off
+     */
+    private void rateLimit(HandlerType method, String path, RateLimiter limiter) {
+        if(limiter == null){
+            return;
+        }
+        javalin.before(path, ctx -> {
+            if(ctx.method() == method){
+                limiter.check(ctx);
+            }
+        });
+    }
+}
@@ -6,5 +6,9 @@ public class ServerMain {
     public static void main(String[] args) {
         var piece = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
         System.out.println("♕ 240 Chess Server: " + piece);
+
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        var server = new Server();
+        System.out.println("Started on port " + server.run(port));
     }
 }
@@ -0,0 +1,261 @@
+package server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Connection and threading settings for the embedded Jetty server, so they
+ * can be tuned per deployment without changing code.
+ * <p>
+ * {@link #load()} reads the properties file named by the
+ * {@value #PROFILE_PROPERTY} system property, or else {@code server.properties}
+ * on the classpath. Any setting left out keeps its default.
+ *
+ * @param minThreads              fewest request threads kept alive
+ * @param maxThreads              most request threads; requests queue beyond this
+ * @param threadIdleTimeoutMillis how long a spare thread above the minimum lives
+ * @param idleTimeoutMillis       how long an idle connection is kept open
+ * @param acceptQueueSize         backlog of connections waiting to be accepted; 0 uses the OS default
+ * @param maxRequestSize          largest request body, in bytes
+ * @param requestHeaderSize       largest request line and headers, in bytes
+ * @param keepAlive               whether HTTP/1.1 connections are reused between requests
+ * @param http2                   whether clients may use cleartext HTTP/2 (h2c) on the same port
+ * @param virtualThreads          whether handlers run on virtual threads instead of the pool
+ * @param observerWindowMillis    how long WebSocket updates for observers are collected
+ *                                into one frame; 0 sends each one straight away
+ * @param heartbeatMillis         how often WebSocket sessions are pinged and
+ *                                checked for liveness; 0 turns heartbeats off
+ * @param sessionIdleTimeoutMillis how long a WebSocket session may send
+ *                                nothing, not even a pong, before it is closed
+ * @param eventBus                how WebSocket broadcasts reach other nodes:
+ *                                empty for a single node, {@code host:port} to
+ *                                join a {@link server.websocket.GameEventBroker},
+ *                                or {@code embedded:port} to run the broker here
+ * @param nodeIndex               this node's place among the nodes sharing an
+ *                                event bus, from 0; it picks which gameIDs
+ *                                this node creates and owns
+ * @param nodeCount               how many nodes share the event bus
+ * @param bcryptCost              bcrypt log rounds for password hashes
+ * @param hashThreads             how many passwords are hashed at once; 0 for one per core
+ * @param hashQueueCapacity       how many hashes may wait before logins are
+ *                                answered with 503
+ * @param userRateLimit           how often one client may register (POST /user)
+ * @param sessionRateLimit        how often one client may log in (POST /session)
+ * @param gameRateLimit           how often one client may create a game (POST /game)
+ * @param authCacheMillis         how long an auth token may be served from memory
+ *                                instead of the database; 0 turns the cache off
+ * @param authCacheEntries        the most auth tokens kept in memory
+ */
+public record ServerProfile(int minThreads, int maxThreads, long threadIdleTimeoutMillis, long idleTimeoutMillis,
+                            int acceptQueueSize, long maxRequestSize, int requestHeaderSize,
+                            boolean keepAlive, boolean http2, boolean virtualThreads, long observerWindowMillis,
+                            long heartbeatMillis, long sessionIdleTimeoutMillis, String eventBus,
+                            int nodeIndex, int nodeCount, int bcryptCost, int hashThreads, int hashQueueCapacity,
+                            RateLimit userRateLimit, RateLimit sessionRateLimit, RateLimit gameRateLimit,
+                            long authCacheMillis, int authCacheEntries) {
+    /**
+     * Path of a properties file to load the profile from
+     */
+    public static final String PROFILE_PROPERTY = "chess.server.profile";
+
+    /**
+     * A per-client limit on one endpoint; see {@link RateLimiter}
+     *
+     * @param capacity  how many requests a client can make at once; 0 turns the limit off
+     * @param perSecond how fast a client's allowance refills
+     */
+    public record RateLimit(int capacity, double perSecond) {
+        public static final RateLimit OFF = new RateLimit(0, 1);
+
+        public RateLimit {
+            if(capacity < 0 || !(perSecond > 0)){
+                throw new IllegalArgumentException("A rate limit needs a capacity of 0 or more and a refill rate above zero");
+            }
+        }
+
+        /**
+         * @return a limiter enforcing this limit, or null if it is off
+         */
+        public RateLimiter limiter() {
+            return capacity == 0 ? null : new RateLimiter(capacity, perSecond);
+        }
+    }
+
+    public ServerProfile {
+        if(minThreads < 1 || maxThreads < minThreads){
+            throw new IllegalArgumentException("Need 1 <= server.threads.min <= server.threads.max");
+        }
+        if(threadIdleTimeoutMillis < 0 || idleTimeoutMillis < 0 || acceptQueueSize < 0
+                || maxRequestSize < 1 || requestHeaderSize < 1 || observerWindowMillis < 0 || heartbeatMillis < 0){
+            throw new IllegalArgumentException("Server timeouts and sizes can't be negative");
+        }
+        if(heartbeatMillis > 0 && sessionIdleTimeoutMillis < heartbeatMillis){
+            throw new IllegalArgumentException("server.ws.idleTimeoutMillis must be at least server.ws.heartbeatMillis");
+        }
+        if(!eventBus.isEmpty() && !eventBus.matches("[^:]+:\\d+")){
+            throw new IllegalArgumentException("server.ws.eventBus must be host:port or embedded:port");
+        }
+        if(nodeCount < 1 || nodeIndex < 0 || nodeIndex >= nodeCount){
+            throw new IllegalArgumentException("Need 0 <= server.node.index < server.node.count");
+        }
+        if(bcryptCost < 4 || bcryptCost > 31){
+            throw new IllegalArgumentException("server.password.bcryptCost must be between 4 and 31");
+        }
+        if(hashThreads < 0 || hashQueueCapacity < 1){
+            throw new IllegalArgumentException("Need server.password.threads >= 0 and server.password.queueCapacity >= 1");
+        }
+        if(authCacheMillis < 0 || authCacheEntries < 1){
+            throw new IllegalArgumentException("Need server.auth.cacheMillis >= 0 and server.auth.cacheEntries >= 1");
+        }
+    }
+
+    /**
+     * @return Jetty's and Javalin's own defaults
+     */
+    public static ServerProfile defaults() {
+        return new ServerProfile(8, 250, 60_000, 30_000, 0, 1_000_000, 8192, true, false,
+                Boolean.getBoolean(Server.VIRTUAL_THREADS_PROPERTY), 0, 10_000, 30_000, "", 0, 1,
+                PasswordHasher.DEFAULT_COST, 0, 100,
+                new RateLimit(5, 0.2), new RateLimit(10, 1), new RateLimit(10, 1), 60_000, 100_000);
+    }
+
+    /**
+     * Loads the profile from the file named by {@value #PROFILE_PROPERTY}, or
+     * {@code server.properties} on the classpath, or the defaults if neither exists
+     */
+    public static ServerProfile load() {
+        Properties properties = new Properties();
+        String path = System.getProperty(PROFILE_PROPERTY);
+        try {
+            if(path != null){
+                try (InputStream in = Files.newInputStream(Path.of(path))) {
+                    properties.load(in);
+                }
+            } else {
+                try (InputStream in = ServerProfile.class.getResourceAsStream("/server.properties")) {
+                    if(in != null){
+                        properties.load(in);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can't read server profile " + path, ex);
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * Reads a profile, using the defaults for any missing setting
+     *
+     * @throws IllegalArgumentException if a setting isn't a valid number or boolean
+     */
+    public static ServerProfile fromProperties(Properties properties) {
+        ServerProfile base = defaults();
+        return new ServerProfile(
+                intSetting(properties, "server.threads.min", base.minThreads),
+                intSetting(properties, "server.threads.max", base.maxThreads),
+                longSetting(properties, "server.threads.idleTimeoutMillis", base.threadIdleTimeoutMillis),
+                longSetting(properties, "server.connection.idleTimeoutMillis", base.idleTimeoutMillis),
+                intSetting(properties, "server.connection.acceptQueueSize", base.acceptQueueSize),
+                longSetting(properties, "server.request.maxSize", base.maxRequestSize),
+                intSetting(properties, "server.request.maxHeaderSize", base.requestHeaderSize),
+                booleanSetting(properties, "server.http.keepAlive", base.keepAlive),
+                booleanSetting(properties, "server.http.h2c", base.http2),
+                booleanSetting(properties, "server.virtualThreads", base.virtualThreads),
+                longSetting(properties, "server.ws.observerWindowMillis", base.observerWindowMillis),
+                longSetting(properties, "server.ws.heartbeatMillis", base.heartbeatMillis),
+                longSetting(properties, "server.ws.idleTimeoutMillis", base.sessionIdleTimeoutMillis),
+                properties.getProperty("server.ws.eventBus", base.eventBus).trim(),
+                intSetting(properties, "server.node.index", base.nodeIndex),
+                intSetting(properties, "server.node.count", base.nodeCount),
+                intSetting(properties, "server.password.bcryptCost", base.bcryptCost),
+                intSetting(properties, "server.password.threads", base.hashThreads),
+                intSetting(properties, "server.password.queueCapacity", base.hashQueueCapacity),
+                rateLimitSetting(properties, "server.rateLimit.user", base.userRateLimit),
+                rateLimitSetting(properties, "server.rateLimit.session", base.sessionRateLimit),
+                rateLimitSetting(properties, "server.rateLimit.game", base.gameRateLimit),
+                longSetting(properties, "server.auth.cacheMillis", base.authCacheMillis),
+                intSetting(properties, "server.auth.cacheEntries", base.authCacheEntries));
+    }
+
+    /**
+     * @return this profile with virtual threads switched on or off
+     */
+    public ServerProfile withVirtualThreads(boolean useVirtualThreads) {
+        return new ServerProfile(minThreads, maxThreads, threadIdleTimeoutMillis, idleTimeoutMillis, acceptQueueSize,
+                maxRequestSize, requestHeaderSize, keepAlive, http2, useVirtualThreads, observerWindowMillis,
+                heartbeatMillis, sessionIdleTimeoutMillis, eventBus, nodeIndex, nodeCount, bcryptCost, hashThreads,
+                hashQueueCapacity, userRateLimit, sessionRateLimit, gameRateLimit, authCacheMillis, authCacheEntries);
+    }
+
+    /**
+     * @return a one line summary of every setting, for the startup log
+     */
+    public String describe() {
+        return String.format("threads=%d-%d (idle %dms, virtual=%b), connection idle=%dms, acceptQueue=%d, "
+                        + "maxRequest=%dB, maxHeader=%dB, keepAlive=%b, h2c=%b, observerWindow=%dms, "
+                        + "heartbeat=%dms, session idle=%dms, eventBus=%s, node=%d/%d, bcrypt cost=%d, "
+                        + "hash threads=%s, hash queue=%d, rate limits user=%s session=%s game=%s, "
+                        + "auth cache=%dms/%d",
+                minThreads, maxThreads, threadIdleTimeoutMillis, virtualThreads, idleTimeoutMillis, acceptQueueSize,
+                maxRequestSize, requestHeaderSize, keepAlive, http2, observerWindowMillis,
+                heartbeatMillis, sessionIdleTimeoutMillis, eventBus.isEmpty() ? "none" : eventBus,
+                nodeIndex, nodeCount, bcryptCost, hashThreads == 0 ? "per core" : Integer.toString(hashThreads),
+                hashQueueCapacity,
+                describe(userRateLimit), describe(sessionRateLimit), describe(gameRateLimit),
+                authCacheMillis, authCacheEntries);
+    }
+
+    private static String describe(RateLimit limit) {
+        return limit.capacity() == 0 ? "off" : limit.capacity() + "@" + limit.perSecond() + "/s";
+    }
+
+    private static RateLimit rateLimitSetting(Properties properties, String prefix, RateLimit fallback) {
+        return new RateLimit(intSetting(properties, prefix + ".capacity", fallback.capacity()),
+                doubleSetting(properties, prefix + ".perSecond", fallback.perSecond()));
+    }
+
+    private static int intSetting(Properties properties, String key, int fallback) {
+        return (int) longSetting(properties, key, fallback);
+    }
+
+    private static long longSetting(Properties properties, String key, long fallback) {
+        String value = properties.getProperty(key);
+        if(value == null){
+            return fallback;
+        }
+        try {
+            return Long.parseLong(value.trim().replace("_", ""));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(key + " must be a number, not \"" + value + "\"");
+        }
+    }
+
+    private static double doubleSetting(Properties properties, String key, double fallback) {
+        String value = properties.getProperty(key);
+        if(value == null){
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(value.trim().replace("_", ""));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(key + " must be a number, not \"" + value + "\"");
+        }
+    }
+
+    private static boolean booleanSetting(Properties properties, String key, boolean fallback) {
+        String value = properties.getProperty(key);
+        if(value == null){
+            return fallback;
+        }
+        return switch (value.trim().toLowerCase()) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> throw new IllegalArgumentException(key + " must be true or false, not \"" + value + "\"");
+        };
+    }
+}
@@ -0,0 +1,296 @@
+package server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hierarchical timer wheel: one thread and a fixed set of buckets run any
+ * number of timeouts, so scheduling, cancelling and expiring a timeout each
+ * cost the same however many are pending.
+ * <p>
+ * The first level has 64 buckets of one tick each; each of the three levels
+ * above has 64 buckets that each span a whole turn of the level below. A
+ * timeout goes into the coarsest level whose bucket it fits in, and is moved
+ * down a level each time its bucket comes round, so a timeout an hour away
+ * is touched a handful of times rather than on every tick. With 10ms ticks
+ * the wheel covers about two days; longer timeouts just go round the top
+ * level again.
+ * <p>
+ * Each bucket is a doubly linked list threaded through its timeouts, so
+ * cancelling unlinks the timeout straight away instead of leaving it in its
+ * bucket until that comes round; a game whose clock is rescheduled on every
+ * move leaves nothing behind.
+ * <p>
+ * Tasks run on the wheel's thread and must be quick; anything slow should be
+ * handed to an executor. A task runs no earlier than its delay, and at most
+ * one tick late.
+ */
+public class TimerWheel {
+    private static final Logger LOG = LoggerFactory.getLogger(TimerWheel.class);
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Bucket[][] levels = new Bucket[LEVELS][SLOTS];
+    private final Thread thread;
+    private long currentTick;
+    private int pending;
+    private volatile boolean running;
+
+    /**
+     * A wheel that only turns when {@link #tick()} is called, for tests
+     */
+    TimerWheel(long tickMillis) {
+        if(tickMillis < 1){
+            throw new IllegalArgumentException("Timer wheel tick must be at least 1ms");
+        }
+        this.tickMillis = tickMillis;
+        for(Bucket[] buckets : levels){
+            for(int slot = 0; slot < SLOTS; slot++){
+                buckets[slot] = new Bucket();
+            }
+        }
+        thread = Thread.ofPlatform().daemon().name("timer-wheel").unstarted(this::run);
+    }
+
+    /**
+     * Starts a wheel with its own daemon thread
+     *
+     * @param name       the thread's name
+     * @param tickMillis how often the wheel turns; timeouts are rounded up to a tick
+     * @return the running wheel
+     */
+    public static TimerWheel start(String name, long tickMillis) {
+        var wheel = new TimerWheel(tickMillis);
+        wheel.thread.setName(name);
+        wheel.running = true;
+        wheel.thread.start();
+        return wheel;
+    }
+
+    /**
+     * Runs a task once a delay has passed
+     *
+     * @param delayMillis how long to wait; rounded up to whole ticks
+     * @param task        what to run, on the wheel's thread
+     * @return a handle that can cancel the task
+     */
+    public Timeout schedule(long delayMillis, Runnable task) {
+        long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        synchronized (this) {
+            var timeout = new Timeout(currentTick + ticks, task);
+            place(timeout);
+            pending++;
+            return timeout;
+        }
+    }
+
+    /**
+     * @return how many tasks are waiting to run
+     */
+    public synchronized int pending() {
+        return pending;
+    }
+
+    /**
+     * @return how many timeouts are linked into buckets, walking them all;
+     * for tests
+     */
+    synchronized int bucketed() {
+        int count = 0;
+        for(Bucket[] buckets : levels){
+            for(Bucket bucket : buckets){
+                for(Timeout timeout = bucket.head; timeout != null; timeout = timeout.next){
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return how long one tick is
+     */
+    public long tickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Stops the wheel's thread; pending tasks never run
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Turns the wheel one tick and runs every task that is due
+     */
+    void tick() {
+        List<Timeout> due = new ArrayList<>();
+        synchronized (this) {
+            currentTick++;
+            for(int level = LEVELS - 1; level > 0; level--){
+                if((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0){
+                    for(Timeout timeout : bucket(level, currentTick).drain()){
+                        place(timeout);
+                    }
+                }
+            }
+            for(Timeout timeout : bucket(0, currentTick).drain()){
+                timeout.expired = true;
+                pending--;
+                due.add(timeout);
+            }
+        }
+        for(Timeout timeout : due){
+            try {
+                timeout.task.run();
+            } catch (RuntimeException ex) {
+                LOG.error("Timer task failed", ex);
+            }
+        }
+    }
+
+    /**
+     * Puts a timeout in the coarsest bucket that comes round before it is
+     * due; callers hold the lock
+     */
+    private void place(Timeout timeout) {
+        long remaining = timeout.deadline - currentTick;
+        int level = 0;
+        while(level < LEVELS - 1 && remaining >= 1L << (SLOT_BITS * (level + 1))){
+            level++;
+        }
+        bucket(level, timeout.deadline).add(timeout);
+    }
+
+    private Bucket bucket(int level, long tick) {
+        return levels[level][(int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1))];
+    }
+
+    /**
+     * Ticks in step with the clock, catching up if a tick ran long
+     */
+    private void run() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        long next = System.nanoTime() + tickNanos;
+        while(running){
+            long wait = next - System.nanoTime();
+            if(wait > 0){
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            tick();
+            next += tickNanos;
+        }
+    }
+
+    /**
+     * A scheduled task
+     */
+    public final class Timeout {
+        private final long deadline;
+        private final Runnable task;
+        private boolean cancelled;
+        private boolean expired;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        /**
+         * Stops the task from running and unlinks it from its bucket
+         *
+         * @return false if the task already ran or was cancelled
+         */
+        public boolean cancel() {
+            synchronized (TimerWheel.this) {
+                if(cancelled || expired){
+                    return false;
+                }
+                cancelled = true;
+                pending--;
+                bucket.remove(this);
+                return true;
+            }
+        }
+
+        /**
+         * @return true once the task has been handed to the wheel's thread to run
+         */
+        public boolean isExpired() {
+            synchronized (TimerWheel.this) {
+                return expired;
+            }
+        }
+    }
+
+    /**
+     * One slot of the wheel: a doubly linked list of timeouts in the order
+     * they were placed; callers hold the wheel's lock
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if(tail == null){
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        private void remove(Timeout timeout) {
+            if(timeout.prev == null){
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if(timeout.next == null){
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        /**
+         * Empties the bucket
+         *
+         * @return the timeouts it held, in order
+         */
+        private List<Timeout> drain() {
+            List<Timeout> drained = new ArrayList<>();
+            Timeout timeout = head;
+            while(timeout != null){
+                Timeout following = timeout.next;
+                timeout.bucket = null;
+                timeout.prev = null;
+                timeout.next = null;
+                drained.add(timeout);
+                timeout = following;
+            }
+            head = null;
+            tail = null;
+            return drained;
+        }
+    }
+}
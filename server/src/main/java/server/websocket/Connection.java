@@ -0,0 +1,215 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import websocket.WireFormat;
+import websocket.messages.ServerMessage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * One WebSocket session that has connected to a game.
+ * <p>
+ * Sends never block. Each connection writes one message at a time and queues
+ * the rest, up to a fixed number; a session that can't keep up fills its own
+ * queue without holding up anyone else in the game. What happens to a full
+ * queue is the {@link ConnectionManager}'s {@link SlowConsumerPolicy}.
+ * <p>
+ * Messages go out as JSON text frames, or as {@link websocket.MessageBinary}
+ * binary frames for a session that negotiated the binary subprotocol.
+ */
+public class Connection implements WriteCallback {
+    /**
+     * What to do with a message for a session whose queue is full
+     */
+    public enum SlowConsumerPolicy {
+        /**
+         * Drop the message. The client sees a gap in MOVE sequence numbers and
+         * sends RESYNC to catch up.
+         */
+        DROP,
+        /**
+         * Close the session with 1013 Try Again Later; the client reconnects
+         * and gets a fresh LOAD_GAME on CONNECT
+         */
+        DISCONNECT
+    }
+
+    private final String username;
+    private final int gameID;
+    private final boolean observer;
+    private final Session session;
+    private final WireFormat format;
+    private final ConnectionManager manager;
+    private final long joinedAfter;
+    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    private boolean writing;
+    private boolean closed;
+    private int highWaterMark;
+    private volatile long lastHeard = System.nanoTime();
+
+    /**
+     * @param joinedAfter the last observer batch sequence number queued before
+     *                    this connection joined; it only gets later ones
+     */
+    Connection(String username, int gameID, boolean observer, Session session, WireFormat format,
+               ConnectionManager manager, long joinedAfter) {
+        this.username = username;
+        this.gameID = gameID;
+        this.observer = observer;
+        this.session = session;
+        this.format = format;
+        this.manager = manager;
+        this.joinedAfter = joinedAfter;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getGameID() {
+        return gameID;
+    }
+
+    /**
+     * @return true if the user is watching the game rather than playing in it
+     */
+    public boolean isObserver() {
+        return observer;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    long joinedAfter() {
+        return joinedAfter;
+    }
+
+    /**
+     * Records that something, a command or a pong, arrived from the client
+     */
+    void heard() {
+        lastHeard = System.nanoTime();
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} when the client was last heard
+     * from, or when the connection was made
+     */
+    long lastHeardNanos() {
+        return lastHeard;
+    }
+
+    /**
+     * @return whether this session is sent text or binary frames
+     */
+    public WireFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Queues a message for this session
+     *
+     * @return false if the message was dropped or the session has been closed
+     */
+    public boolean send(ServerMessage message) {
+        return send(new Outbound(message));
+    }
+
+    /**
+     * Queues a message that may be shared with other sessions, so a broadcast
+     * serializes it once per format rather than once per recipient
+     *
+     * @return false if the message was dropped or the session has been closed
+     */
+    boolean send(Outbound outbound) {
+        Object frame = outbound.frame(format);
+        boolean evict = false;
+        synchronized (this) {
+            if(closed){
+                return false;
+            }
+            if(!writing){
+                writing = true;
+            } else if(queue.size() < manager.queueCapacity()){
+                queue.add(frame);
+                if(queue.size() > highWaterMark){
+                    highWaterMark = queue.size();
+                    manager.recordQueueDepth(highWaterMark);
+                }
+                return true;
+            } else if(manager.slowConsumerPolicy() == SlowConsumerPolicy.DROP){
+                manager.recordDrop();
+                return false;
+            } else {
+                closed = true;
+                queue.clear();
+                evict = true;
+            }
+        }
+        if(evict){
+            manager.recordEviction();
+            session.close(StatusCode.TRY_AGAIN_LATER, "Too slow to keep up with the game");
+            return false;
+        }
+        write(frame);
+        return true;
+    }
+
+    /**
+     * @return how many messages are waiting behind the one being written
+     */
+    public synchronized int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return the deepest this session's queue has been
+     */
+    public synchronized int queueHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * @return true once the session failed or was disconnected for being slow
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Starts writing the next queued message once the previous one is out
+     */
+    @Override
+    public void writeSuccess() {
+        Object next;
+        synchronized (this) {
+            next = queue.poll();
+            if(next == null || closed){
+                writing = false;
+                return;
+            }
+        }
+        write(next);
+    }
+
+    @Override
+    public void writeFailed(Throwable cause) {
+        synchronized (this) {
+            closed = true;
+            writing = false;
+            queue.clear();
+        }
+    }
+
+    private void write(Object frame) {
+        if(frame instanceof byte[] bytes){
+            session.getRemote().sendBytes(ByteBuffer.wrap(bytes).asReadOnlyBuffer(), this);
+        } else {
+            session.getRemote().sendString((String) frame, this);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import websocket.WireFormat;
+import websocket.messages.BatchMessage;
+import websocket.messages.ServerMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks which sessions are connected to which games, and sends messages to
+ * everyone in a game.
+ * <p>
+ * Every session has its own bounded outbound queue (see {@link Connection}),
+ * so a broadcast only queues messages and returns; one slow observer can't
+ * delay the players or anyone else in the game. This also keeps counts of
+ * how deep queues get and how many slow sessions lost messages.
+ * <p>
+ * Observers can optionally be sent updates in batches: with a coalescing
+ * window set, the first message for a game's observers starts a timer, and
+ * everything broadcast before it fires is sent to them as one
+ * {@link BatchMessage}, serialized once for the game. Players still get every
+ * message straight away. However fast a game is played, its observers then
+ * get at most one frame per window. Each queued message takes a sequence
+ * number and each connection remembers the last one queued before it joined,
+ * so an observer who connects or resumes mid-window, and was sent the game
+ * as it stands, isn't sent the moves that were waiting for the others.
+ * {@link #close()} stops the window timer.
+ */
+public class ConnectionManager {
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private final ConcurrentHashMap<Integer, Set<Connection>> games = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Session, Connection> sessions = new ConcurrentHashMap<>();
+    private final int queueCapacity;
+    private final Connection.SlowConsumerPolicy slowConsumerPolicy;
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final long observerWindowMillis;
+    private final ScheduledExecutorService flusher;
+    private final ConcurrentHashMap<Integer, List<Pending>> observerBatches = new ConcurrentHashMap<>();
+    private final AtomicLong observerSequence = new AtomicLong();
+
+    public ConnectionManager() {
+        this(DEFAULT_QUEUE_CAPACITY, Connection.SlowConsumerPolicy.DISCONNECT, 0);
+    }
+
+    /**
+     * @param queueCapacity        how many messages may wait for each session
+     * @param slowConsumerPolicy   what to do when a session's queue is full
+     * @param observerWindowMillis how long to collect messages for observers
+     *                             before sending them together, or 0 to send
+     *                             every message straight away
+     */
+    public ConnectionManager(int queueCapacity, Connection.SlowConsumerPolicy slowConsumerPolicy,
+                             long observerWindowMillis) {
+        this.queueCapacity = queueCapacity;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.observerWindowMillis = observerWindowMillis;
+        flusher = observerWindowMillis <= 0 ? null : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "observer-batches");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Connects a session that speaks JSON to a game
+     *
+     * @param observer true if the user is watching rather than playing
+     * @return the new connection
+     */
+    public Connection add(String username, int gameID, boolean observer, Session session) {
+        return add(username, gameID, observer, session, WireFormat.JSON);
+    }
+
+    /**
+     * Connects a session to a game, replacing any game it was connected to before
+     *
+     * @param observer true if the user is watching rather than playing
+     * @param format   how messages are written to the session
+     * @return the new connection
+     */
+    public Connection add(String username, int gameID, boolean observer, Session session, WireFormat format) {
+        var connection = new Connection(username, gameID, observer, session, format, this, observerSequence.get());
+        Connection old = sessions.put(connection.getSession(), connection);
+        if(old != null){
+            removeFromGame(old);
+        }
+        games.compute(connection.getGameID(), (id, connections) -> {
+            Set<Connection> set = connections == null ? ConcurrentHashMap.newKeySet() : connections;
+            set.add(connection);
+            return set;
+        });
+        return connection;
+    }
+
+    /**
+     * @return the session's connection, or null if it hasn't connected to a game
+     */
+    public Connection get(Session session) {
+        return sessions.get(session);
+    }
+
+    /**
+     * Removes a session from its game
+     *
+     * @return the connection that was removed, or null if there wasn't one
+     */
+    public Connection remove(Session session) {
+        Connection connection = sessions.remove(session);
+        if(connection != null){
+            removeFromGame(connection);
+        }
+        return connection;
+    }
+
+    /**
+     * Sends a message to every session connected to a game. The message is
+     * serialized once per wire format and the same frame is written to every
+     * session, so the cost of a broadcast doesn't grow with encoding work per
+     * observer. With a
+     * coalescing window, observers get the message in the game's next batch.
+     *
+     * @param gameID  the game
+     * @param exclude a connection to skip, usually whoever caused the message, or null
+     * @param message what to send
+     */
+    public void broadcast(int gameID, Connection exclude, ServerMessage message) {
+        Set<Connection> connections = games.get(gameID);
+        if(connections == null || connections.isEmpty()
+                || exclude != null && connections.size() == 1 && connections.contains(exclude)){
+            return;
+        }
+        boolean batchObservers = flusher != null;
+        var outbound = new Outbound(message);
+        boolean anyObserver = false;
+        for(Connection connection : connections){
+            if(batchObservers && connection.isObserver()){
+                anyObserver = true;
+                continue;
+            }
+            if(connection == exclude){
+                continue;
+            }
+            send(connection, outbound);
+        }
+        if(anyObserver){
+            queueForObservers(gameID, message, exclude);
+        }
+    }
+
+    /**
+     * @return the deepest any session's queue has been
+     */
+    public int queueHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    /**
+     * @return how many messages were dropped because a session's queue was full
+     */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return how many sessions were disconnected for falling too far behind
+     */
+    public long evictedCount() {
+        return evicted.get();
+    }
+
+    int queueCapacity() {
+        return queueCapacity;
+    }
+
+    Connection.SlowConsumerPolicy slowConsumerPolicy() {
+        return slowConsumerPolicy;
+    }
+
+    void recordQueueDepth(int depth) {
+        highWaterMark.accumulateAndGet(depth, Math::max);
+    }
+
+    void recordDrop() {
+        dropped.incrementAndGet();
+    }
+
+    void recordEviction() {
+        evicted.incrementAndGet();
+    }
+
+    /**
+     * Sends every message still waiting for a game's observers; they are
+     * otherwise sent when the game's window closes
+     */
+    public void flushObservers(int gameID) {
+        List<Pending> batch = observerBatches.remove(gameID);
+        Set<Connection> connections = games.get(gameID);
+        if(batch == null || connections == null){
+            return;
+        }
+        Outbound shared = null;
+        for(Connection connection : connections){
+            if(!connection.isObserver()){
+                continue;
+            }
+            List<ServerMessage> messages = new ArrayList<>(batch.size());
+            for(Pending pending : batch){
+                if(pending.exclude != connection && pending.sequence > connection.joinedAfter()){
+                    messages.add(pending.message);
+                }
+            }
+            if(messages.isEmpty()){
+                continue;
+            }
+            if(messages.size() < batch.size()){
+                send(connection, new Outbound(batchOf(messages)));
+                continue;
+            }
+            if(shared == null){
+                shared = new Outbound(batchOf(messages));
+            }
+            send(connection, shared);
+        }
+    }
+
+    /**
+     * Stops the observer window timer; messages still waiting for observers
+     * are dropped
+     */
+    public void close() {
+        if(flusher != null){
+            flusher.shutdownNow();
+        }
+    }
+
+    private void queueForObservers(int gameID, ServerMessage message, Connection exclude) {
+        observerBatches.compute(gameID, (id, batch) -> {
+            if(batch == null){
+                batch = new ArrayList<>();
+                try {
+                    flusher.schedule(() -> flushObservers(gameID), observerWindowMillis, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException ex) {
+                    // closed
+                    return null;
+                }
+            }
+            batch.add(new Pending(message, exclude, observerSequence.incrementAndGet()));
+            return batch;
+        });
+    }
+
+    private static ServerMessage batchOf(List<ServerMessage> messages) {
+        return messages.size() == 1 ? messages.get(0) : new BatchMessage(messages);
+    }
+
+    private void send(Connection connection, Outbound outbound) {
+        if(!connection.send(outbound) && connection.isClosed()){
+            remove(connection.getSession());
+        }
+    }
+
+    private void removeFromGame(Connection connection) {
+        games.computeIfPresent(connection.getGameID(), (id, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    /**
+     * A message waiting for a game's observers, who it shouldn't go to, and
+     * its place in the order messages were queued
+     */
+    private record Pending(ServerMessage message, Connection exclude, long sequence) {
+    }
+}
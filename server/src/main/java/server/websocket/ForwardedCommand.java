@@ -0,0 +1,18 @@
+package server.websocket;
+
+import websocket.commands.UserGameCommand;
+
+/**
+ * A command from a session on one node for a game another node owns.
+ * The sending node has already checked the auth token, so only the owner of
+ * the game runs it.
+ *
+ * @param node     the node the session is connected to
+ * @param gameID   the game
+ * @param session  the session's id, for the owner's replies
+ * @param username who sent it
+ * @param command  the command as the client sent it
+ */
+public record ForwardedCommand(String node, int gameID, String session, String username, UserGameCommand command)
+        implements NodeMessage {
+}
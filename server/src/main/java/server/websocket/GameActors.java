@@ -0,0 +1,144 @@
+package server.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Gives every game a mailbox of commands that are run one at a time, in the
+ * order they were submitted, so a game's state only ever has one writer.
+ * <p>
+ * A mailbox has no thread of its own. When a command arrives at an idle
+ * mailbox, a virtual thread is started to drain it and exits once it is
+ * empty, so idle games cost nothing and busy games run in parallel with
+ * each other. The only lock is the mailbox's own, held just long enough to
+ * queue or take a command, never while one runs.
+ * <p>
+ * A mailbox that drains is retired and removed from the map, so finished and
+ * abandoned games leave nothing behind; the next command for the game gets a
+ * new one. A submit that picked up a mailbox just as it retired sees it
+ * refuse the command and tries again with a fresh one, and since a retired
+ * mailbox is empty and no longer running, commands still run one at a time
+ * and in order.
+ */
+public class GameActors {
+    private static final Logger LOG = LoggerFactory.getLogger(GameActors.class);
+
+    private final Executor executor;
+    private final ConcurrentHashMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public GameActors() {
+        this(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * @param executor runs the drain loops; each call to it drains one mailbox
+     */
+    GameActors(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queues a command for a game. Commands for the same game run one at a
+     * time in submission order; commands for different games run in parallel.
+     *
+     * @param gameID  the game the command acts on
+     * @param command what to do; an exception it throws is logged and the
+     *                next command still runs
+     */
+    public void submit(int gameID, Runnable command) {
+        while(true){
+            Mailbox mailbox = mailboxes.computeIfAbsent(gameID, Mailbox::new);
+            switch (mailbox.offer(command)) {
+                case START -> executor.execute(mailbox);
+                case RETIRED -> {
+                    mailboxes.remove(gameID, mailbox);
+                    continue;
+                }
+                default -> { }
+            }
+            return;
+        }
+    }
+
+    /**
+     * @return how many games have a mailbox, i.e. have commands queued or running
+     */
+    public int activeGames() {
+        return mailboxes.size();
+    }
+
+    /**
+     * @return how many commands are waiting for a game, not counting one running now
+     */
+    public int pending(int gameID) {
+        Mailbox mailbox = mailboxes.get(gameID);
+        return mailbox == null ? 0 : mailbox.size();
+    }
+
+    private enum Offer {
+        /** queued behind a running drain */
+        QUEUED,
+        /** queued at an idle mailbox; the caller must start a drain */
+        START,
+        /** refused because the mailbox drained and was retired */
+        RETIRED
+    }
+
+    private class Mailbox implements Runnable {
+        private final int gameID;
+        private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean retired;
+
+        private Mailbox(int gameID) {
+            this.gameID = gameID;
+        }
+
+        private synchronized Offer offer(Runnable command) {
+            if(retired){
+                return Offer.RETIRED;
+            }
+            queue.add(command);
+            if(draining){
+                return Offer.QUEUED;
+            }
+            draining = true;
+            return Offer.START;
+        }
+
+        /**
+         * @return the next command, or null once the mailbox is empty, which
+         * retires it
+         */
+        private synchronized Runnable next() {
+            Runnable command = queue.poll();
+            if(command == null){
+                draining = false;
+                retired = true;
+            }
+            return command;
+        }
+
+        private synchronized int size() {
+            return queue.size();
+        }
+
+        @Override
+        public void run() {
+            Runnable command;
+            while((command = next()) != null){
+                try {
+                    command.run();
+                } catch (RuntimeException ex) {
+                    LOG.error("Command for game {} failed", gameID, ex);
+                }
+            }
+            mailboxes.remove(gameID, this);
+        }
+    }
+}
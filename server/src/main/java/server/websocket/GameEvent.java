@@ -0,0 +1,18 @@
+package server.websocket;
+
+import websocket.messages.ServerMessage;
+
+/**
+ * A message for everyone following a game, as passed between server nodes
+ *
+ * @param node    which node published it, so a node can skip its own events
+ * @param gameID  the game
+ * @param message what to send to the game's sessions
+ * @param exclude the id of a session to leave out, or null to send to all
+ */
+public record GameEvent(String node, int gameID, ServerMessage message, String exclude) implements NodeMessage {
+
+    public GameEvent(String node, int gameID, ServerMessage message) {
+        this(node, gameID, message, null);
+    }
+}
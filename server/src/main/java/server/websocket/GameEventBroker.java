@@ -0,0 +1,187 @@
+package server.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A small broker that any number of {@link SocketGameEventBus} nodes connect
+ * to over TCP. Every frame a node sends is relayed, unread, to every other
+ * connected node. It can run inside one of the server nodes, so a few nodes
+ * on one machine or network need nothing else installed.
+ * <p>
+ * Each node is read on its own virtual thread, which queues the frames it
+ * reads for the other nodes. Every node has a bounded outbound queue drained
+ * by its own writer thread, so frames from one node arrive everywhere in the
+ * order they were sent, and a node that stops reading is disconnected once
+ * its queue fills instead of holding up the rest.
+ */
+public class GameEventBroker implements AutoCloseable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(GameEventBroker.class);
+
+    private final ServerSocket server;
+    private final int queueCapacity;
+    private final Set<Peer> peers = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    private GameEventBroker(ServerSocket server, int queueCapacity) {
+        this.server = server;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Starts a broker listening on the loopback address
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @return the running broker
+     * @throws IOException if the port can't be opened
+     */
+    public static GameEventBroker start(int port) throws IOException {
+        return start(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * Starts a broker
+     *
+     * @param address the address to listen on
+     * @param port    the port to listen on, or 0 for any free port
+     * @return the running broker
+     * @throws IOException if the port can't be opened
+     */
+    public static GameEventBroker start(InetAddress address, int port) throws IOException {
+        return start(address, port, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param queueCapacity how many frames may wait for a node before it is
+     *                      disconnected as too slow
+     */
+    static GameEventBroker start(InetAddress address, int port, int queueCapacity) throws IOException {
+        var broker = new GameEventBroker(new ServerSocket(port, 50, address), queueCapacity);
+        Thread.ofVirtual().name("event-broker").start(broker::accept);
+        return broker;
+    }
+
+    /**
+     * @return the port the broker is listening on
+     */
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * @return how many nodes are connected
+     */
+    public int peerCount() {
+        return peers.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException ex) {
+            LOG.warn("Couldn't close event broker", ex);
+        }
+        for(Peer peer : peers){
+            peer.close();
+        }
+    }
+
+    private void accept() {
+        while(!closed){
+            try {
+                var peer = new Peer(server.accept(), queueCapacity);
+                peers.add(peer);
+                peer.writer = Thread.ofVirtual().name("event-broker-writer").start(() -> write(peer));
+                Thread.ofVirtual().name("event-broker-peer").start(() -> relay(peer));
+            } catch (IOException ex) {
+                if(!closed){
+                    LOG.error("Event broker stopped accepting nodes", ex);
+                }
+                return;
+            }
+        }
+    }
+
+    private void relay(Peer from) {
+        try {
+            while(true){
+                byte[] frame = SocketGameEventBus.readFrame(from.in);
+                for(Peer to : peers){
+                    if(to != from && !to.outbound.offer(frame) && peers.remove(to)){
+                        LOG.warn("Disconnecting event bus node {} after {} frames backed up",
+                                to.socket.getRemoteSocketAddress(), queueCapacity);
+                        to.close();
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            // the node disconnected or sent something that isn't a frame
+        } finally {
+            peers.remove(from);
+            from.close();
+        }
+    }
+
+    /**
+     * Writes a node's queued frames, flushing whenever its queue runs dry
+     */
+    private void write(Peer to) {
+        try {
+            while(true){
+                SocketGameEventBus.writeFrame(to.out, to.outbound.take());
+                if(to.outbound.isEmpty()){
+                    to.out.flush();
+                }
+            }
+        } catch (IOException | InterruptedException ex) {
+            // the node disconnected or was closed
+        } finally {
+            peers.remove(to);
+            to.close();
+        }
+    }
+
+    private static class Peer {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final BufferedOutputStream out;
+        private final BlockingQueue<byte[]> outbound;
+        private volatile Thread writer;
+
+        private Peer(Socket socket, int queueCapacity) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new BufferedOutputStream(socket.getOutputStream());
+            outbound = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // already closed
+            }
+            Thread current = writer;
+            if(current != null){
+                current.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package server.websocket;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries game broadcasts between server nodes, so a move made on one node
+ * reaches players and observers connected to any of them.
+ * <p>
+ * Each node delivers to its own sessions directly and publishes the event;
+ * every other node hears it and delivers it to theirs. A bus may hand a
+ * node's own messages back to it, so listeners skip messages from their own node.
+ * <p>
+ * The bus also carries {@link ForwardedCommand}s to the node that owns a
+ * game and that node's {@link SessionReply}s back. Messages from one node
+ * arrive everywhere in the order they were published.
+ */
+public interface GameEventBus extends AutoCloseable {
+
+    /**
+     * Sends a message to every other node
+     */
+    void publish(NodeMessage message);
+
+    /**
+     * Registers a listener for messages published on the bus. Listeners are
+     * called on the bus's own thread and should only queue work.
+     */
+    void subscribe(Consumer<NodeMessage> listener);
+
+    /**
+     * @return false while the bus can't reach the other nodes, so events only
+     * reach this node's sessions and commands for their games can't be forwarded
+     */
+    default boolean isConnected() {
+        return true;
+    }
+
+    /**
+     * Stops delivering events and releases any connection
+     */
+    @Override
+    void close();
+}
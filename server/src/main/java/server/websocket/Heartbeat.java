@@ -0,0 +1,95 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import server.TimerWheel;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pings every connected session on a fixed interval and reaps the ones that
+ * have gone away, so a client that vanished without LEAVE stops holding a
+ * place in its game's broadcast list.
+ * <p>
+ * A session is reaped when it has closed or failed without its close event
+ * removing it, or when nothing at all, not even a pong, has arrived from it
+ * for the idle timeout. Jetty counts the pings it writes as activity, so its
+ * own idle timeout never fires for a pinged session; instead the
+ * {@link WebSocketHandler} stamps each {@link Connection} whenever a command
+ * or pong arrives, and each check looks at how long ago that was.
+ * <p>
+ * Every session's next check is one entry on a shared {@link TimerWheel}, so
+ * watching ten thousand sessions costs no more threads or scheduled executor
+ * tasks than watching one.
+ */
+public class Heartbeat {
+    private static final ByteBuffer PING = ByteBuffer.allocate(0);
+
+    private final ConnectionManager connections;
+    private final TimerWheel wheel;
+    private final long intervalMillis;
+    private final long idleTimeoutNanos;
+    private final AtomicLong reaped = new AtomicLong();
+
+    /**
+     * @param connections       where sessions are registered
+     * @param wheel             runs the checks
+     * @param intervalMillis    how often each session is pinged and checked
+     * @param idleTimeoutMillis how long a session may go without sending
+     *                          anything before it is closed
+     */
+    public Heartbeat(ConnectionManager connections, TimerWheel wheel, long intervalMillis, long idleTimeoutMillis) {
+        if(intervalMillis < 1 || idleTimeoutMillis < intervalMillis){
+            throw new IllegalArgumentException("Need 1 <= heartbeat interval <= idle timeout");
+        }
+        this.connections = connections;
+        this.wheel = wheel;
+        this.intervalMillis = intervalMillis;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+    }
+
+    /**
+     * Starts pinging and checking a connection; checks stop by themselves
+     * once the connection is removed or replaced
+     */
+    public void watch(Connection connection) {
+        wheel.schedule(intervalMillis, () -> check(connection));
+    }
+
+    /**
+     * @return how many sessions have been reaped
+     */
+    public long reapedCount() {
+        return reaped.get();
+    }
+
+    private void check(Connection connection) {
+        Session session = connection.getSession();
+        if(connections.get(session) != connection){
+            return;
+        }
+        if(connection.isClosed() || !session.isOpen()){
+            reap(connection, false);
+            return;
+        }
+        if(System.nanoTime() - connection.lastHeardNanos() >= idleTimeoutNanos){
+            reap(connection, true);
+            return;
+        }
+        session.getRemote().sendPing(PING.duplicate(), WriteCallback.NOOP);
+        wheel.schedule(intervalMillis, () -> check(connection));
+    }
+
+    private void reap(Connection connection, boolean idle) {
+        if(connections.remove(connection.getSession()) != connection){
+            return;
+        }
+        reaped.incrementAndGet();
+        if(idle){
+            connection.getSession().close(StatusCode.SHUTDOWN, "Idle timeout");
+        }
+    }
+}
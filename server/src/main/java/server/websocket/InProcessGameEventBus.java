@@ -0,0 +1,35 @@
+package server.websocket;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A {@link GameEventBus} for nodes running in the same JVM: publishing calls
+ * every listener straight away on the publishing thread
+ */
+public class InProcessGameEventBus implements GameEventBus {
+    private final List<Consumer<NodeMessage>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    @Override
+    public void publish(NodeMessage message) {
+        if(closed){
+            return;
+        }
+        for(Consumer<NodeMessage> listener : listeners){
+            listener.accept(message);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<NodeMessage> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        listeners.clear();
+    }
+}
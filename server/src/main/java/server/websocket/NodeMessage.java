@@ -0,0 +1,17 @@
+package server.websocket;
+
+/**
+ * Anything one server node sends another over a {@link GameEventBus}
+ */
+public sealed interface NodeMessage permits GameEvent, ForwardedCommand, SessionReply {
+
+    /**
+     * @return which node sent it, so a node can skip its own messages
+     */
+    String node();
+
+    /**
+     * @return the game it is about
+     */
+    int gameID();
+}
@@ -0,0 +1,37 @@
+package server.websocket;
+
+import websocket.MessageBinary;
+import websocket.MessageJson;
+import websocket.WireFormat;
+import websocket.messages.ServerMessage;
+
+/**
+ * A message on its way to one or more sessions, serialized at most once per
+ * wire format no matter how many sessions it goes to
+ */
+class Outbound {
+    private final ServerMessage message;
+    private String json;
+    private byte[] binary;
+
+    Outbound(ServerMessage message) {
+        this.message = message;
+    }
+
+    /**
+     * @return the frame to write for a format: a String for a text frame or
+     * a byte[] for a binary one
+     */
+    synchronized Object frame(WireFormat format) {
+        if(format == WireFormat.BINARY){
+            if(binary == null){
+                binary = MessageBinary.encodeMessage(message);
+            }
+            return binary;
+        }
+        if(json == null){
+            json = MessageJson.toJson(message);
+        }
+        return json;
+    }
+}
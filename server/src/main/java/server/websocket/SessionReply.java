@@ -0,0 +1,30 @@
+package server.websocket;
+
+import websocket.messages.ServerMessage;
+
+/**
+ * What the node that owns a game tells another node to do with one of its
+ * sessions while running a {@link ForwardedCommand}
+ *
+ * @param node     the node that owns the game
+ * @param gameID   the game
+ * @param target   the node the session is connected to
+ * @param session  the session's id
+ * @param action   what to do with the session
+ * @param username who the session belongs to, when it is added to the game
+ * @param message  what to send the session, for {@link Action#SEND}
+ */
+public record SessionReply(String node, int gameID, String target, String session, Action action, String username,
+                           ServerMessage message) implements NodeMessage {
+
+    public enum Action {
+        /** send the session a message */
+        SEND,
+        /** add the session to the game's broadcasts as a player */
+        ADD_PLAYER,
+        /** add the session to the game's broadcasts as an observer */
+        ADD_OBSERVER,
+        /** take the session off the game's broadcasts */
+        REMOVE
+    }
+}
@@ -0,0 +1,317 @@
+package server.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import websocket.MessageBinary;
+import websocket.messages.ServerMessage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A {@link GameEventBus} that connects to a {@link GameEventBroker} over
+ * TCP, for nodes in different processes or on different machines.
+ * <p>
+ * Messages go over the wire as length-prefixed frames holding which kind of
+ * {@link NodeMessage} it is, the publishing node's id, the gameID and the
+ * rest of its fields, with any command or server message in its
+ * {@link MessageBinary} form, so a MOVE costs a few dozen bytes.
+ * <p>
+ * Publishing never blocks or throws: the frame joins a bounded queue that a
+ * writer thread drains onto the socket, so a slow broker never holds up a
+ * game's mailbox. If the queue is full, or the broker connection is down,
+ * the event is dropped and counted, and only this node's sessions get it.
+ * A lost connection is retried with backoff until the bus is closed;
+ * {@link #isConnected()} tells whether other nodes are being reached.
+ */
+public class SocketGameEventBus implements GameEventBus {
+    public static final int MAX_FRAME_BYTES = 1 << 20;
+    public static final int QUEUE_CAPACITY = 10_000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(SocketGameEventBus.class);
+    private static final long MIN_BACKOFF_MILLIS = 50;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+    private static final int EVENT = 0;
+    private static final int COMMAND = 1;
+    private static final int REPLY = 2;
+    private static final SessionReply.Action[] REPLY_ACTIONS = SessionReply.Action.values();
+
+    private final String host;
+    private final int port;
+    private final BlockingQueue<byte[]> outbound = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final List<Consumer<NodeMessage>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private final Thread reader;
+    private volatile Link link;
+    private volatile boolean closed;
+
+    /**
+     * Connects to a broker and starts listening for events
+     *
+     * @throws IOException if the broker can't be reached
+     */
+    public SocketGameEventBus(String host, int port) throws IOException {
+        this.host = host;
+        this.port = port;
+        link = new Link(host, port);
+        writer = Thread.ofVirtual().name("event-bus-writer").start(this::write);
+        reader = Thread.ofVirtual().name("event-bus").start(this::listen);
+    }
+
+    @Override
+    public void publish(NodeMessage message) {
+        if(closed){
+            return;
+        }
+        if(link == null || !outbound.offer(encode(message))){
+            dropped.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<NodeMessage> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return true while connected to the broker; events published while
+     * this is false only reach this node
+     */
+    @Override
+    public boolean isConnected() {
+        return link != null;
+    }
+
+    /**
+     * @return how many events never reached the broker because the queue was
+     * full or the connection was down
+     */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Link current = link;
+        if(current != null){
+            current.close();
+        }
+        writer.interrupt();
+        reader.interrupt();
+    }
+
+    /**
+     * Reads events from the broker, reconnecting with backoff whenever the
+     * connection drops
+     */
+    private void listen() {
+        long backoff = MIN_BACKOFF_MILLIS;
+        while(!closed){
+            Link current = link;
+            if(current == null){
+                try {
+                    Thread.sleep(backoff);
+                    current = new Link(host, port);
+                } catch (InterruptedException ex) {
+                    return;
+                } catch (IOException ex) {
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                    continue;
+                }
+                link = current;
+                if(closed){
+                    current.close();
+                    return;
+                }
+                backoff = MIN_BACKOFF_MILLIS;
+                LOG.info("Reconnected to the event broker at {}:{}", host, port);
+            }
+            try {
+                while(true){
+                    NodeMessage message = decode(readFrame(current.in));
+                    for(Consumer<NodeMessage> listener : listeners){
+                        listener.accept(message);
+                    }
+                }
+            } catch (IOException | IllegalArgumentException ex) {
+                link = null;
+                current.close();
+                if(!closed){
+                    LOG.warn("Lost connection to the event broker at {}:{}, reconnecting: {}", host, port,
+                            ex.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes queued frames to the broker, flushing whenever the queue runs dry
+     */
+    private void write() {
+        while(!closed){
+            byte[] frame;
+            try {
+                frame = outbound.take();
+            } catch (InterruptedException ex) {
+                return;
+            }
+            Link current = link;
+            if(current == null){
+                dropped.incrementAndGet();
+                continue;
+            }
+            try {
+                writeFrame(current.out, frame);
+                if(outbound.isEmpty()){
+                    current.out.flush();
+                }
+            } catch (IOException ex) {
+                dropped.incrementAndGet();
+                current.close();
+            }
+        }
+    }
+
+    static byte[] encode(NodeMessage message) {
+        var bytes = new ByteArrayOutputStream(64);
+        try (var data = new DataOutputStream(bytes)) {
+            data.writeUTF(message.node());
+            data.writeInt(message.gameID());
+            switch (message) {
+                case GameEvent event -> {
+                    data.writeByte(EVENT);
+                    writeOptional(data, event.exclude());
+                    data.write(MessageBinary.encodeMessage(event.message()));
+                }
+                case ForwardedCommand command -> {
+                    data.writeByte(COMMAND);
+                    data.writeUTF(command.session());
+                    data.writeUTF(command.username());
+                    data.write(MessageBinary.encodeCommand(command.command()));
+                }
+                case SessionReply reply -> {
+                    data.writeByte(REPLY);
+                    data.writeUTF(reply.target());
+                    data.writeUTF(reply.session());
+                    data.writeByte(reply.action().ordinal());
+                    writeOptional(data, reply.username());
+                    if(reply.message() != null){
+                        data.write(MessageBinary.encodeMessage(reply.message()));
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the frame isn't a node message
+     */
+    static NodeMessage decode(byte[] frame) {
+        try (var data = new DataInputStream(new ByteArrayInputStream(frame))) {
+            String node = data.readUTF();
+            int gameID = data.readInt();
+            int kind = data.readByte();
+            return switch (kind) {
+                case EVENT -> {
+                    String exclude = readOptional(data);
+                    yield new GameEvent(node, gameID, MessageBinary.decodeMessage(data.readAllBytes()), exclude);
+                }
+                case COMMAND -> new ForwardedCommand(node, gameID, data.readUTF(), data.readUTF(),
+                        MessageBinary.decodeCommand(data.readAllBytes()));
+                case REPLY -> {
+                    String target = data.readUTF();
+                    String session = data.readUTF();
+                    int action = data.readByte();
+                    if(action < 0 || action >= REPLY_ACTIONS.length){
+                        throw new IllegalArgumentException("Unknown reply action " + action);
+                    }
+                    String username = readOptional(data);
+                    byte[] rest = data.readAllBytes();
+                    ServerMessage message = rest.length == 0 ? null : MessageBinary.decodeMessage(rest);
+                    yield new SessionReply(node, gameID, target, session, REPLY_ACTIONS[action], username, message);
+                }
+                default -> throw new IllegalArgumentException("Unknown node message kind " + kind);
+            };
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Truncated node message", ex);
+        }
+    }
+
+    private static void writeOptional(DataOutputStream data, String value) throws IOException {
+        data.writeBoolean(value != null);
+        if(value != null){
+            data.writeUTF(value);
+        }
+    }
+
+    private static String readOptional(DataInputStream data) throws IOException {
+        return data.readBoolean() ? data.readUTF() : null;
+    }
+
+    /**
+     * Writes a frame without flushing, so a writer with more queued can batch
+     * them. It takes the buffered stream rather than a {@link DataOutputStream},
+     * whose synchronized writes would pin a virtual thread's carrier for as long
+     * as a slow peer's socket stays full.
+     */
+    static void writeFrame(BufferedOutputStream out, byte[] frame) throws IOException {
+        int length = frame.length;
+        out.write(new byte[] {(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        out.write(frame);
+    }
+
+    /**
+     * @throws IOException if the stream ends or the frame is too large
+     */
+    static byte[] readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if(length < 0 || length > MAX_FRAME_BYTES){
+            throw new IOException("Bad event frame length " + length);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+
+    /**
+     * One connection to the broker; the reader replaces it when it drops
+     */
+    private static class Link {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final BufferedOutputStream out;
+
+        private Link(String host, int port) throws IOException {
+            socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // already closed
+            }
+        }
+    }
+}
@@ -0,0 +1,545 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.ChessNotation;
+import chess.InvalidMoveException;
+import com.google.gson.JsonParseException;
+import dataaccess.AuthDAO;
+import dataaccess.DataAccessException;
+import io.javalin.Javalin;
+import model.AuthData;
+import model.GameData;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketListener;
+import org.eclipse.jetty.websocket.api.WebSocketPingPongListener;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.server.config.JettyWebSocketServletContainerInitializer;
+import server.GameRegistry;
+import server.TimerWheel;
+import server.websocket.SessionReply.Action;
+import websocket.MessageBinary;
+import websocket.MessageJson;
+import websocket.WireFormat;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.ResumeCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.BatchMessage;
+import websocket.messages.ErrorMessage;
+import websocket.messages.MoveMessage;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Handles the gameplay WebSocket: players and observers connect to a game,
+ * then get a MOVE message for every move made in it instead of the whole game
+ * again. The whole game is only sent as LOAD_GAME on CONNECT and RESYNC.
+ * A client that drops and reconnects can send RESUME with the last sequence
+ * number it saw instead of CONNECT, and is sent only the moves it missed
+ * while the game still remembers them (see {@link GameRegistry#eventsSince}).
+ * <p>
+ * Parsing and authenticating a command happen on the socket's thread; what
+ * the command does to its game is then run by that game's {@link GameActors}
+ * mailbox, so commands on one game apply in order while other games carry on
+ * in parallel.
+ * <p>
+ * Commands and messages are JSON text frames by default. A client that offers
+ * the {@link WireFormat#BINARY_SUBPROTOCOL} subprotocol when it connects
+ * speaks {@link MessageBinary} frames instead. Either way Jetty negotiates
+ * permessage-deflate with clients that offer it, so repeated JSON keys and
+ * notification text are compressed on the wire.
+ * <p>
+ * With a {@link GameEventBus}, every broadcast is also published to the
+ * other server nodes, which pass it on to their own sessions in the game, so
+ * players and observers of one game can be connected to different nodes.
+ * Only the node whose {@link GameRegistry} {@link GameRegistry#owns owns} a
+ * game runs commands on it: any other node checks the auth token and
+ * forwards the command over the bus, and the owner answers with
+ * {@link SessionReply}s telling that node what to send its session and when
+ * to add it to or take it off the game's broadcasts. Everything the owner
+ * publishes arrives in order, so a session is added before the broadcasts
+ * that follow its CONNECT.
+ * <p>
+ * In a timed game, each move replaces the game's one entry on a shared
+ * {@link TimerWheel} with a new one due when the player to move runs out of
+ * time. When it fires, the flag check runs on the game's mailbox like any
+ * command, so it can't race a move that beat it there. Ten thousand running
+ * clocks are ten thousand wheel entries, not ten thousand scheduled tasks.
+ */
+public class WebSocketHandler {
+    private final GameRegistry games;
+    private final AuthDAO auths;
+    private final ConnectionManager connections;
+    private final Heartbeat heartbeat;
+    private final GameEventBus bus;
+    private final TimerWheel timers;
+    private final ConcurrentHashMap<Integer, TimerWheel.Timeout> flagTimers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final String node = UUID.randomUUID().toString();
+    private final GameActors actors = new GameActors();
+
+    public WebSocketHandler(GameRegistry games, AuthDAO auths) {
+        this(games, auths, new ConnectionManager(), null, null);
+    }
+
+    public WebSocketHandler(GameRegistry games, AuthDAO auths, ConnectionManager connections, Heartbeat heartbeat) {
+        this(games, auths, connections, heartbeat, null);
+    }
+
+    public WebSocketHandler(GameRegistry games, AuthDAO auths, ConnectionManager connections, Heartbeat heartbeat,
+                            GameEventBus bus) {
+        this(games, auths, connections, heartbeat, bus, null);
+    }
+
+    /**
+     * @param connections tracks sessions, with the outbound queue size and
+     *                    slow consumer policy to use
+     * @param heartbeat   pings connected sessions and reaps dead ones, or null
+     *                    to leave sessions until they close
+     * @param bus         shares broadcasts with other server nodes, or null
+     *                    when this is the only node
+     * @param timers      ends timed games when a clock runs out, or null to
+     *                    only notice when the player tries to move
+     */
+    public WebSocketHandler(GameRegistry games, AuthDAO auths, ConnectionManager connections, Heartbeat heartbeat,
+                            GameEventBus bus, TimerWheel timers) {
+        this.games = games;
+        this.auths = auths;
+        this.connections = connections;
+        this.heartbeat = heartbeat;
+        this.bus = bus;
+        this.timers = timers;
+        if(bus != null){
+            bus.subscribe(this::onNodeMessage);
+        }
+    }
+
+    /**
+     * Serves the WebSocket on a path. This is a plain Jetty endpoint rather
+     * than a Javalin ws handler because Javalin doesn't pass pongs on, and
+     * the {@link Heartbeat} needs them to tell a quiet client from a dead one.
+     * Must be called before the server starts.
+     */
+    public void register(Javalin javalin, String path) {
+        javalin.unsafeConfig().jetty.modifyServletContextHandler(context ->
+                JettyWebSocketServletContainerInitializer.configure(context, (servletContext, container) ->
+                        container.addMapping(path, (request, response) -> {
+                            if(request.getSubProtocols().contains(WireFormat.BINARY_SUBPROTOCOL)){
+                                response.setAcceptedSubProtocol(WireFormat.BINARY_SUBPROTOCOL);
+                            }
+                            return new Endpoint();
+                        })));
+    }
+
+    private void onMessage(Session session, String id, String message) {
+        UserGameCommand command;
+        try {
+            command = MessageJson.parseCommand(message);
+        } catch (JsonParseException ex) {
+            sendError(session, "Error: bad command");
+            return;
+        }
+        handle(session, id, command);
+    }
+
+    private void onBinaryMessage(Session session, String id, byte[] payload, int offset, int length) {
+        UserGameCommand command;
+        try {
+            command = MessageBinary.decodeCommand(Arrays.copyOfRange(payload, offset, offset + length));
+        } catch (IllegalArgumentException ex) {
+            sendError(session, "Error: bad command");
+            return;
+        }
+        handle(session, id, command);
+    }
+
+    private void heard(Session session) {
+        Connection connection = connections.get(session);
+        if(connection != null){
+            connection.heard();
+        }
+    }
+
+    /**
+     * Runs a command here if this node owns its game, or forwards it to the
+     * node that does
+     */
+    private void handle(Session session, String id, UserGameCommand command) {
+        AuthData auth;
+        try {
+            auth = auths.getAuth(command.getAuthToken());
+        } catch (DataAccessException ex) {
+            sendError(session, "Error: " + ex.getMessage());
+            return;
+        }
+        if(auth == null){
+            sendError(session, "Error: unauthorized");
+            return;
+        }
+        Integer gameID = command.getGameID();
+        if(gameID == null){
+            sendError(session, "Error: no game with id " + gameID);
+        } else if(games.owns(gameID)){
+            run(new Client(node, id), auth.username(), command);
+        } else if(bus != null && bus.isConnected()){
+            bus.publish(new ForwardedCommand(node, gameID, id, auth.username(), command));
+        } else {
+            sendError(session, "Error: no game with id " + gameID);
+        }
+    }
+
+    /**
+     * Queues a command on its game's mailbox; only called on the node that
+     * owns the game
+     */
+    private void run(Client client, String username, UserGameCommand command) {
+        int gameID = command.getGameID();
+        if(games.get(gameID) == null){
+            reply(client, gameID, new ErrorMessage("Error: no game with id " + gameID));
+            return;
+        }
+        actors.submit(gameID, () -> {
+            switch (command.getCommandType()) {
+                case CONNECT -> connect(client, username, gameID);
+                case MAKE_MOVE -> makeMove(client, username, gameID, (MakeMoveCommand) command);
+                case LEAVE -> leave(client, username, gameID);
+                case RESIGN -> resign(client, username, gameID);
+                case RESYNC -> resync(client, gameID);
+                case RESUME -> resume(client, username, gameID, (ResumeCommand) command);
+            }
+        });
+    }
+
+    /**
+     * Handles what another node published: broadcasts for its games, commands
+     * for this node's games, and replies for this node's sessions
+     */
+    private void onNodeMessage(NodeMessage message) {
+        if(message.node().equals(node)){
+            return;
+        }
+        switch (message) {
+            case GameEvent event ->
+                    connections.broadcast(event.gameID(), connectionOf(event.exclude()), event.message());
+            case ForwardedCommand forwarded -> {
+                if(games.owns(forwarded.gameID())){
+                    run(new Client(forwarded.node(), forwarded.session()), forwarded.username(), forwarded.command());
+                }
+            }
+            case SessionReply reply -> {
+                Session session = reply.target().equals(node) ? sessions.get(reply.session()) : null;
+                if(session != null){
+                    switch (reply.action()) {
+                        case SEND -> send(session, reply.message());
+                        case ADD_PLAYER, ADD_OBSERVER ->
+                                add(session, reply.username(), reply.gameID(), reply.action() == Action.ADD_OBSERVER);
+                        case REMOVE -> connections.remove(session);
+                    }
+                }
+            }
+        }
+    }
+
+    private void connect(Client client, String username, int gameID) {
+        GameData game = games.get(gameID);
+        if(game == null){
+            sendError(client, gameID, "Error: no game with id " + gameID);
+            return;
+        }
+        String role = role(game, username);
+        follow(client, username, gameID, role.equals("an observer"));
+        reply(client, gameID, games.load(gameID));
+        broadcast(gameID, client,
+                new NotificationMessage(username + " joined the game as " + role));
+    }
+
+    /**
+     * Reconnects a session without telling the rest of the game, and sends
+     * it the moves, resignations, departures and flag falls after its last
+     * sequence number as one batch. Events are applied on the same mailbox,
+     * so none can land between reading the missed ones and the session
+     * joining the broadcast list. When the gap is too old to replay, the
+     * session gets the whole game, plus how it ended if it ended off the board.
+     */
+    private void resume(Client client, String username, int gameID, ResumeCommand command) {
+        GameData game = games.get(gameID);
+        if(game == null){
+            sendError(client, gameID, "Error: no game with id " + gameID);
+            return;
+        }
+        follow(client, username, gameID, role(game, username).equals("an observer"));
+        List<ServerMessage> missed = games.eventsSince(gameID, command.getLastSequence());
+        if(missed == null){
+            reply(client, gameID, games.load(gameID));
+            NotificationMessage ending = games.ending(gameID);
+            if(ending != null){
+                reply(client, gameID, ending);
+            }
+        } else if(missed.size() == 1){
+            reply(client, gameID, missed.get(0));
+        } else if(!missed.isEmpty()){
+            reply(client, gameID, new BatchMessage(new ArrayList<>(missed)));
+        }
+    }
+
+    private void makeMove(Client client, String username, int gameID, MakeMoveCommand command) {
+        if(command.getMove() == null){
+            sendError(client, gameID, "Error: no move given");
+            return;
+        }
+        MoveMessage moved;
+        try {
+            moved = games.makeMove(gameID, username, command.getMove());
+        } catch (InvalidMoveException ex) {
+            sendError(client, gameID, "Error: " + ex.getMessage());
+            if(games.timeControl(gameID) != null){
+                checkFlag(gameID);
+            }
+            return;
+        }
+        scheduleFlag(gameID);
+        broadcast(gameID, null, moved);
+        broadcast(gameID, client,
+                new NotificationMessage(username + " moved " + ChessNotation.toUci(command.getMove())));
+
+        GameData after = games.get(gameID);
+        ChessGame.TeamColor next = after.game().getTeamTurn();
+        String nextPlayer = next == ChessGame.TeamColor.WHITE ? after.whiteUsername() : after.blackUsername();
+        String status = switch (moved.getStatus()) {
+            case CHECK -> nextPlayer + " is in check";
+            case CHECKMATE -> nextPlayer + " is in checkmate";
+            case STALEMATE -> "The game is a stalemate";
+            case IN_PROGRESS -> null;
+        };
+        if(status != null){
+            broadcast(gameID, null, new NotificationMessage(status));
+        }
+    }
+
+    private void leave(Client client, String username, int gameID) {
+        NotificationMessage left = games.leave(gameID, username);
+        unfollow(client, gameID);
+        broadcast(gameID, client, left != null ? left : new NotificationMessage(username + " left the game"));
+    }
+
+    private void resign(Client client, String username, int gameID) {
+        NotificationMessage resigned = games.resign(gameID, username);
+        if(resigned == null){
+            sendError(client, gameID, games.isFinished(gameID)
+                    ? "Error: the game is already over" : "Error: observers can't resign");
+            return;
+        }
+        scheduleFlag(gameID);
+        broadcast(gameID, null, resigned);
+    }
+
+    /**
+     * Replaces a game's flag timer with one due when the player to move runs
+     * out, or just cancels it when no clock is running; only called on the
+     * game's mailbox
+     */
+    private void scheduleFlag(int gameID) {
+        if(timers == null){
+            return;
+        }
+        long millis = games.millisToFlag(gameID);
+        TimerWheel.Timeout previous = millis < 0 ? flagTimers.remove(gameID)
+                : flagTimers.put(gameID, timers.schedule(millis, () -> actors.submit(gameID, () -> checkFlag(gameID))));
+        if(previous != null){
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Ends the game if the player to move is out of time, otherwise waits
+     * for whatever time they have left
+     */
+    private void checkFlag(int gameID) {
+        if(games.get(gameID) == null){
+            flagTimers.remove(gameID);
+            return;
+        }
+        NotificationMessage flagged = games.flag(gameID);
+        scheduleFlag(gameID);
+        if(flagged != null){
+            broadcast(gameID, null, flagged);
+        }
+    }
+
+    private void resync(Client client, int gameID) {
+        reply(client, gameID, games.load(gameID));
+    }
+
+    private void sendError(Session session, String message) {
+        send(session, new ErrorMessage(message));
+    }
+
+    private void sendError(Client client, int gameID, String message) {
+        reply(client, gameID, new ErrorMessage(message));
+    }
+
+    /**
+     * Sends a message to a client's session, directly if it is connected here
+     * or else through the node it is connected to
+     */
+    private void reply(Client client, int gameID, ServerMessage message) {
+        if(client.node().equals(node)){
+            Session session = sessions.get(client.session());
+            if(session != null){
+                send(session, message);
+            }
+        } else {
+            bus.publish(new SessionReply(node, gameID, client.node(), client.session(), Action.SEND, null, message));
+        }
+    }
+
+    /**
+     * Adds a client's session to a game's broadcasts on whichever node it is
+     * connected to
+     */
+    private void follow(Client client, String username, int gameID, boolean observer) {
+        if(client.node().equals(node)){
+            Session session = sessions.get(client.session());
+            if(session != null){
+                add(session, username, gameID, observer);
+            }
+        } else {
+            bus.publish(new SessionReply(node, gameID, client.node(), client.session(),
+                    observer ? Action.ADD_OBSERVER : Action.ADD_PLAYER, username, null));
+        }
+    }
+
+    private void unfollow(Client client, int gameID) {
+        if(client.node().equals(node)){
+            Session session = sessions.get(client.session());
+            if(session != null){
+                connections.remove(session);
+            }
+        } else {
+            bus.publish(new SessionReply(node, gameID, client.node(), client.session(), Action.REMOVE, null, null));
+        }
+    }
+
+    private void add(Session session, String username, int gameID, boolean observer) {
+        watch(connections.add(username, gameID, observer, session, formatOf(session)));
+    }
+
+    /**
+     * @return the connection for one of this node's sessions, or null if the
+     * id is null or the session isn't connected here
+     */
+    private Connection connectionOf(String id) {
+        Session session = id == null ? null : sessions.get(id);
+        return session == null ? null : connections.get(session);
+    }
+
+    /**
+     * Sends through the session's connection when it has one, so the message
+     * joins that session's queue behind any broadcasts
+     */
+    private void send(Session session, ServerMessage message) {
+        Connection connection = connections.get(session);
+        if(connection != null){
+            connection.send(message);
+        } else if(formatOf(session) == WireFormat.BINARY){
+            session.getRemote().sendBytes(ByteBuffer.wrap(MessageBinary.encodeMessage(message)), WriteCallback.NOOP);
+        } else {
+            session.getRemote().sendString(MessageJson.toJson(message), WriteCallback.NOOP);
+        }
+    }
+
+    /**
+     * Sends a message to this node's sessions in a game and publishes it for
+     * the other nodes' sessions
+     *
+     * @param exclude the client to leave out, wherever it is connected, or null
+     */
+    private void broadcast(int gameID, Client exclude, ServerMessage message) {
+        String excluded = exclude == null ? null : exclude.session();
+        connections.broadcast(gameID, connectionOf(excluded), message);
+        if(bus != null){
+            bus.publish(new GameEvent(node, gameID, message, excluded));
+        }
+    }
+
+    private void watch(Connection connection) {
+        if(heartbeat != null){
+            heartbeat.watch(connection);
+        }
+    }
+
+    private static String role(GameData game, String username) {
+        if(username.equals(game.whiteUsername())){
+            return "white";
+        } else if(username.equals(game.blackUsername())){
+            return "black";
+        }
+        return "an observer";
+    }
+
+    private static WireFormat formatOf(Session session) {
+        return WireFormat.forSubprotocol(session.getUpgradeResponse().getAcceptedSubProtocol());
+    }
+
+    /**
+     * Where a command came from: a session, by its id, on some node
+     */
+    private record Client(String node, String session) {
+    }
+
+    /**
+     * One client's socket; Jetty makes one per upgraded connection
+     */
+    private class Endpoint implements WebSocketListener, WebSocketPingPongListener {
+        private final String id = UUID.randomUUID().toString();
+        private Session session;
+
+        @Override
+        public void onWebSocketConnect(Session session) {
+            this.session = session;
+            sessions.put(id, session);
+        }
+
+        @Override
+        public void onWebSocketText(String message) {
+            heard(session);
+            onMessage(session, id, message);
+        }
+
+        @Override
+        public void onWebSocketBinary(byte[] payload, int offset, int length) {
+            heard(session);
+            onBinaryMessage(session, id, payload, offset, length);
+        }
+
+        @Override
+        public void onWebSocketPing(ByteBuffer payload) {
+            heard(session);
+        }
+
+        @Override
+        public void onWebSocketPong(ByteBuffer payload) {
+            heard(session);
+        }
+
+        @Override
+        public void onWebSocketClose(int statusCode, String reason) {
+            sessions.remove(id);
+            connections.remove(session);
+        }
+
+        @Override
+        public void onWebSocketError(Throwable cause) {
+            sessions.remove(id);
+            if(session != null){
+                connections.remove(session);
+            }
+        }
+    }
+}
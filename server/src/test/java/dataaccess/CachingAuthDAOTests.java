@@ -0,0 +1,127 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+public class CachingAuthDAOTests {
+
+    /**
+     * Counts how often the cache falls through to storage
+     */
+    private static class CountingAuthDAO implements AuthDAO {
+        private final HashMap<String, AuthData> tokens = new HashMap<>();
+        private int lookups;
+        private Runnable duringLookup = () -> { };
+
+        @Override
+        public void createAuth(AuthData auth) {
+            tokens.put(auth.authToken(), auth);
+        }
+
+        @Override
+        public AuthData getAuth(String authToken) {
+            lookups++;
+            AuthData auth = tokens.get(authToken);
+            duringLookup.run();
+            return auth;
+        }
+
+        @Override
+        public void deleteAuth(String authToken) {
+            tokens.remove(authToken);
+        }
+
+        @Override
+        public void clear() {
+            tokens.clear();
+        }
+    }
+
+    @Test
+    @DisplayName("Cached Until Deleted")
+    public void cachedUntilDeleted() throws DataAccessException {
+        var storage = new CountingAuthDAO();
+        var cache = new CachingAuthDAO(storage, 60_000, 100);
+        cache.createAuth(new AuthData("token", "alice"));
+
+        for(int i = 0; i < 5; i++){
+            Assertions.assertEquals("alice", cache.getAuth("token").username());
+        }
+        Assertions.assertEquals(0, storage.lookups);
+
+        cache.deleteAuth("token");
+        Assertions.assertNull(cache.getAuth("token"));
+        Assertions.assertNull(cache.getAuth("unknown"));
+    }
+
+    @Test
+    @DisplayName("Loads On Miss and Expiry")
+    public void loadsOnMissAndExpiry() throws DataAccessException {
+        var storage = new CountingAuthDAO();
+        storage.createAuth(new AuthData("token", "bob"));
+        var cache = new CachingAuthDAO(storage, 0, 100);
+
+        Assertions.assertEquals("bob", cache.getAuth("token").username());
+        Assertions.assertEquals("bob", cache.getAuth("token").username());
+        Assertions.assertEquals(2, storage.lookups);
+    }
+
+    @Test
+    @DisplayName("Size Bounded")
+    public void sizeBounded() throws DataAccessException {
+        var cache = new CachingAuthDAO(new CountingAuthDAO(), 60_000, 50);
+        for(int i = 0; i < 500; i++){
+            cache.createAuth(new AuthData("token" + i, "user" + i));
+        }
+        Assertions.assertTrue(cache.size() <= 50, "Cache grew to " + cache.size());
+        Assertions.assertEquals("user499", cache.getAuth("token499").username());
+    }
+
+    @Test
+    @DisplayName("Lookup Racing Clear Isn't Cached")
+    public void lookupRacingClear() throws DataAccessException {
+        var storage = new CountingAuthDAO();
+        storage.createAuth(new AuthData("token", "carol"));
+        var cache = new CachingAuthDAO(storage, 60_000, 100);
+        storage.duringLookup = () -> {
+            try {
+                cache.clear();
+            } catch (DataAccessException ex) {
+                throw new AssertionError(ex);
+            }
+        };
+
+        Assertions.assertEquals("carol", cache.getAuth("token").username());
+        storage.duringLookup = () -> { };
+        Assertions.assertNull(cache.getAuth("token"));
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Revoked Markers Survive Eviction")
+    public void revokedMarkersSurviveEviction() throws DataAccessException {
+        var storage = new CountingAuthDAO();
+        var cache = new CachingAuthDAO(storage, 60_000, 20);
+        storage.createAuth(new AuthData("token", "dave"));
+        storage.duringLookup = () -> {
+            try {
+                cache.deleteAuth("token");
+                for(int i = 0; i < 100; i++){
+                    cache.createAuth(new AuthData("other" + i, "user" + i));
+                }
+            } catch (DataAccessException ex) {
+                throw new AssertionError(ex);
+            }
+        };
+
+        // this lookup read the token just before it was deleted
+        cache.getAuth("token");
+        storage.duringLookup = () -> { };
+        Assertions.assertNull(cache.getAuth("token"));
+        Assertions.assertTrue(cache.size() <= 21, "Cache grew to " + cache.size());
+    }
+}
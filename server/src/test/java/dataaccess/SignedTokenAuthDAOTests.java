@@ -0,0 +1,119 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SignedTokenAuthDAOTests {
+    private static final byte[] KEY_ONE = key(1);
+    private static final byte[] KEY_TWO = key(2);
+    private static final Clock NOW = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    @DisplayName("Issue, Validate and Revoke")
+    public void issueValidateRevoke() throws DataAccessException {
+        var tokens = new SignedTokenAuthDAO(Map.of("k1", KEY_ONE), "k1", Duration.ofHours(1), NOW);
+        AuthData auth = tokens.issue("ali:ce");
+        Assertions.assertEquals(auth, tokens.getAuth(auth.authToken()));
+        tokens.createAuth(auth);
+
+        tokens.deleteAuth(auth.authToken());
+        Assertions.assertNull(tokens.getAuth(auth.authToken()));
+        Assertions.assertNotNull(tokens.getAuth(tokens.issue("ali:ce").authToken()));
+    }
+
+    @Test
+    @DisplayName("Clear Rejects Tokens Issued Before It")
+    public void clearRejectsEarlierTokens() {
+        var now = new AtomicReference<>(NOW.instant());
+        var clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now.get();
+            }
+        };
+        var tokens = new SignedTokenAuthDAO(Map.of("k1", KEY_ONE), "k1", Duration.ofHours(1), clock);
+        String loggedIn = tokens.issue("alice").authToken();
+        String loggedOut = tokens.issue("bob").authToken();
+        tokens.deleteAuth(loggedOut);
+        tokens.clear();
+        Assertions.assertNull(tokens.getAuth(loggedIn));
+        Assertions.assertNull(tokens.getAuth(loggedOut));
+        Assertions.assertNull(tokens.getAuth(tokens.issue("alice").authToken()));
+
+        now.set(now.get().plusMillis(1));
+        Assertions.assertNull(tokens.getAuth(loggedIn));
+        Assertions.assertEquals("alice", tokens.getAuth(tokens.issue("alice").authToken()).username());
+    }
+
+    @Test
+    @DisplayName("Reject Forged and Expired Tokens")
+    public void rejectForgedAndExpired() {
+        var tokens = new SignedTokenAuthDAO(Map.of("k1", KEY_ONE), "k1", Duration.ofHours(1), NOW);
+        String token = tokens.issue("alice").authToken();
+
+        var otherKey = new SignedTokenAuthDAO(Map.of("k1", KEY_TWO), "k1", Duration.ofHours(1), NOW);
+        Assertions.assertNull(otherKey.getAuth(token));
+        Assertions.assertNull(tokens.getAuth(token.substring(0, token.length() - 2) + "AA"));
+        Assertions.assertNull(tokens.getAuth("not a token"));
+        Assertions.assertThrows(DataAccessException.class, () -> tokens.createAuth(new AuthData("x.y", "alice")));
+
+        var later = new SignedTokenAuthDAO(Map.of("k1", KEY_ONE), "k1", Duration.ofHours(1),
+                Clock.offset(NOW, Duration.ofHours(2)));
+        Assertions.assertNull(later.getAuth(token));
+    }
+
+    @Test
+    @DisplayName("Revocation Survives Re-encoding")
+    public void revocationSurvivesReencoding() {
+        var tokens = new SignedTokenAuthDAO(Map.of("k1", KEY_ONE), "k1", Duration.ofHours(1), NOW);
+        String token = tokens.issue("alice").authToken();
+        tokens.deleteAuth(token);
+
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        char last = token.charAt(token.length() - 1);
+        String variant = token.substring(0, token.length() - 1) + alphabet.charAt(alphabet.indexOf(last) ^ 1);
+        Assertions.assertArrayEquals(Base64.getUrlDecoder().decode(token.substring(token.indexOf('.') + 1)),
+                Base64.getUrlDecoder().decode(variant.substring(variant.indexOf('.') + 1)));
+        Assertions.assertNull(tokens.getAuth(token));
+        Assertions.assertNull(tokens.getAuth(variant));
+    }
+
+    @Test
+    @DisplayName("Key Rotation")
+    public void keyRotation() {
+        var old = new SignedTokenAuthDAO(Map.of("k1", KEY_ONE), "k1", Duration.ofHours(1), NOW);
+        String oldToken = old.issue("alice").authToken();
+
+        var rotated = new SignedTokenAuthDAO(Map.of("k1", KEY_ONE, "k2", KEY_TWO), "k2", Duration.ofHours(1), NOW);
+        Assertions.assertEquals("alice", rotated.getAuth(oldToken).username());
+        Assertions.assertNull(old.getAuth(rotated.issue("bob").authToken()));
+    }
+
+    private static byte[] key(int fill) {
+        byte[] key = new byte[32];
+        Arrays.fill(key, (byte) fill);
+        return key;
+    }
+}
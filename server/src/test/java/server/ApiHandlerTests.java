@@ -0,0 +1,164 @@
+package server;
+
+import chess.ChessGame;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import model.TimeControl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Properties;
+
+public class ApiHandlerTests {
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final Gson gson = new Gson();
+    private Server server;
+    private int port;
+
+    @BeforeEach
+    public void setup() {
+        var properties = new Properties();
+        properties.setProperty("server.password.bcryptCost", "4");
+        server = new Server(ServerProfile.fromProperties(properties));
+        port = server.run(0);
+    }
+
+    @AfterEach
+    public void stop() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Register, Log Out and Log In")
+    public void registerAndLogin() throws IOException, InterruptedException {
+        var registered = send("POST", "/user", null, "{\"username\":\"a\",\"password\":\"pw\",\"email\":\"a@mail\"}");
+        Assertions.assertEquals(200, registered.statusCode());
+        String token = body(registered).get("authToken").getAsString();
+        Assertions.assertEquals("a", body(registered).get("username").getAsString());
+
+        var again = send("POST", "/user", null, "{\"username\":\"a\",\"password\":\"x\",\"email\":\"b@mail\"}");
+        Assertions.assertEquals(403, again.statusCode());
+        Assertions.assertTrue(body(again).get("message").getAsString().startsWith("Error:"));
+
+        Assertions.assertEquals(200, send("DELETE", "/session", token, null).statusCode());
+        Assertions.assertEquals(401, send("DELETE", "/session", token, null).statusCode());
+
+        Assertions.assertEquals(401, send("POST", "/session", null, "{\"username\":\"a\",\"password\":\"bad\"}").statusCode());
+        Assertions.assertEquals(401, send("POST", "/session", null, "{\"username\":\"b\",\"password\":\"pw\"}").statusCode());
+        Assertions.assertEquals(400, send("POST", "/session", null, "{\"username\":\"a\"}").statusCode());
+        var login = send("POST", "/session", null, "{\"username\":\"a\",\"password\":\"pw\"}");
+        Assertions.assertEquals(200, login.statusCode());
+        Assertions.assertNotEquals(token, body(login).get("authToken").getAsString());
+    }
+
+    @Test
+    @DisplayName("Create, List and Join Games")
+    public void games() throws IOException, InterruptedException {
+        String white = register("white");
+        String black = register("black");
+        Assertions.assertEquals(401, send("POST", "/game", "nope", "{\"gameName\":\"g\"}").statusCode());
+        Assertions.assertEquals(400, send("POST", "/game", white, "{}").statusCode());
+
+        var created = send("POST", "/game", white, "{\"gameName\":\"g\"}");
+        Assertions.assertEquals(200, created.statusCode());
+        int gameID = body(created).get("gameID").getAsInt();
+        Assertions.assertNull(server.games().timeControl(gameID));
+
+        var timed = send("POST", "/game", white,
+                "{\"gameName\":\"blitz\",\"timeControl\":{\"baseMillis\":180000,\"incrementMillis\":2000}}");
+        Assertions.assertEquals(200, timed.statusCode());
+        Assertions.assertEquals(new TimeControl(180_000, 2_000),
+                server.games().timeControl(body(timed).get("gameID").getAsInt()));
+        Assertions.assertEquals(400, send("POST", "/game", white,
+                "{\"gameName\":\"bad\",\"timeControl\":{\"baseMillis\":0}}").statusCode());
+        Assertions.assertEquals(400, send("POST", "/game", white,
+                "{\"gameName\":\"bad\",\"timeControl\":{\"baseMillis\":\"soon\"}}").statusCode());
+
+        Assertions.assertEquals(200, join(white, "WHITE", gameID).statusCode());
+        Assertions.assertEquals(403, join(black, "WHITE", gameID).statusCode());
+        Assertions.assertEquals(400, join(black, "GREEN", gameID).statusCode());
+        Assertions.assertEquals(400, join(black, "BLACK", 9999).statusCode());
+
+        var listed = body(send("GET", "/game", black, null)).getAsJsonArray("games");
+        Assertions.assertEquals(2, listed.size());
+        JsonObject game = listed.get(0).getAsJsonObject();
+        Assertions.assertEquals(gameID, game.get("gameID").getAsInt());
+        Assertions.assertEquals("white", game.get("whiteUsername").getAsString());
+        Assertions.assertNull(game.get("blackUsername"));
+        Assertions.assertEquals("g", game.get("gameName").getAsString());
+
+        var gzipped = http.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/game"))
+                .header("authorization", black).header("Accept-Encoding", "gzip").build(),
+                HttpResponse.BodyHandlers.discarding());
+        Assertions.assertEquals("gzip", gzipped.headers().firstValue("Content-Encoding").orElseThrow());
+        Assertions.assertEquals("Authorization, Accept-Encoding", gzipped.headers().firstValue("Vary").orElseThrow());
+        String etag = gzipped.headers().firstValue("ETag").orElseThrow();
+        var unchanged = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/game"))
+                .header("authorization", black).header("If-None-Match", etag).build();
+        Assertions.assertEquals(304, http.send(unchanged, HttpResponse.BodyHandlers.discarding()).statusCode());
+        Assertions.assertEquals(200, join(black, "BLACK", gameID).statusCode());
+        Assertions.assertEquals(200, http.send(unchanged, HttpResponse.BodyHandlers.discarding()).statusCode());
+
+        Assertions.assertEquals(200, send("DELETE", "/db", null, null).statusCode());
+        Assertions.assertEquals(401, send("GET", "/game", black, null).statusCode());
+    }
+
+    @Test
+    @DisplayName("List Games A Page At A Time")
+    public void pagedListing() throws IOException, InterruptedException {
+        String token = register("a");
+        for(int i = 0; i < 5; i++){
+            server.games().create("game " + i);
+        }
+        server.games().join(2, ChessGame.TeamColor.WHITE, "a");
+
+        var first = body(send("GET", "/game?pageSize=2", token, null));
+        Assertions.assertEquals(2, first.getAsJsonArray("games").size());
+        String cursor = first.get("nextCursor").getAsString();
+        var second = body(send("GET", "/game?pageSize=2&cursor=" + cursor, token, null));
+        Assertions.assertEquals(3, second.getAsJsonArray("games").get(0).getAsJsonObject().get("gameID").getAsInt());
+
+        var mine = body(send("GET", "/game?filter=MINE", token, null)).getAsJsonArray("games");
+        Assertions.assertEquals(1, mine.size());
+        Assertions.assertEquals(2, mine.get(0).getAsJsonObject().get("gameID").getAsInt());
+        var open = body(send("GET", "/game?filter=open,mine", token, null)).getAsJsonArray("games");
+        Assertions.assertEquals(1, open.size());
+
+        Assertions.assertEquals(400, send("GET", "/game?cursor=nonsense", token, null).statusCode());
+        Assertions.assertEquals(400, send("GET", "/game?filter=EVERYTHING", token, null).statusCode());
+        Assertions.assertEquals(400, send("GET", "/game?pageSize=many", token, null).statusCode());
+    }
+
+    private String register(String username) throws IOException, InterruptedException {
+        var response = send("POST", "/user", null,
+                "{\"username\":\"" + username + "\",\"password\":\"pw\",\"email\":\"e\"}");
+        Assertions.assertEquals(200, response.statusCode());
+        return body(response).get("authToken").getAsString();
+    }
+
+    private HttpResponse<String> join(String token, String color, int gameID) throws IOException, InterruptedException {
+        return send("PUT", "/game", token, "{\"playerColor\":\"" + color + "\",\"gameID\":" + gameID + "}");
+    }
+
+    private HttpResponse<String> send(String method, String path, String token, String body)
+            throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if(token != null){
+            request.header("authorization", token);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private JsonObject body(HttpResponse<String> response) {
+        return gson.fromJson(response.body(), JsonObject.class);
+    }
+}
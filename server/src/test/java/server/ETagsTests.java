@@ -0,0 +1,85 @@
+package server;
+
+import chess.ChessNotation;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+public class ETagsTests {
+    private final GameRegistry registry = new GameRegistry();
+    private final HttpClient http = HttpClient.newHttpClient();
+    private Server server;
+    private int port;
+    private int served;
+    private int gameID;
+
+    @BeforeEach
+    public void setup() {
+        gameID = registry.create("game").gameID();
+        server = new Server(false);
+        server.javalin().get("/game/{id}", ctx -> {
+            ctx.header("Vary", "Accept-Encoding");
+            if(ETags.gameNotModified(ctx, registry, Integer.parseInt(ctx.pathParam("id")))){
+                return;
+            }
+            served++;
+            ctx.result("game");
+        });
+        port = server.run(0);
+    }
+
+    @AfterEach
+    public void stop() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Not Modified Until The Game Changes")
+    public void notModified() throws IOException, InterruptedException, InvalidMoveException {
+        var first = get(null);
+        Assertions.assertEquals(200, first.statusCode());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        Assertions.assertTrue(etag.startsWith("W/\""), etag);
+        Assertions.assertEquals("Accept-Encoding, Authorization", first.headers().firstValue("Vary").orElseThrow());
+
+        Assertions.assertEquals(304, get(etag).statusCode());
+        Assertions.assertEquals(304, get(etag.substring(2)).statusCode());
+        Assertions.assertEquals(304, get("\"other\", " + etag).statusCode());
+        Assertions.assertEquals(1, served);
+        Assertions.assertEquals(1, get(etag).headers().allValues("Vary").size());
+
+        registry.makeMove(gameID, ChessNotation.fromUci("e2e4"));
+        var changed = get(etag);
+        Assertions.assertEquals(200, changed.statusCode());
+        Assertions.assertNotEquals(etag, changed.headers().firstValue("ETag").orElseThrow());
+        Assertions.assertEquals(2, served);
+    }
+
+    @Test
+    @DisplayName("Tags Differ Between Registries")
+    public void tagsDifferBetweenRegistries() throws IOException, InterruptedException {
+        String etag = get(null).headers().firstValue("ETag").orElseThrow();
+        var restarted = new GameRegistry();
+        restarted.create("game");
+        Assertions.assertEquals(registry.gameVersion(gameID), restarted.gameVersion(gameID));
+        Assertions.assertNotEquals(registry.epoch(), restarted.epoch());
+        Assertions.assertTrue(etag.contains(registry.epoch()));
+    }
+
+    private HttpResponse<String> get(String ifNoneMatch) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/game/" + gameID));
+        if(ifNoneMatch != null){
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,261 @@
+package server;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessNotation;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import model.ClockTimes;
+import model.GamePage;
+import model.GameSummary;
+import model.TimeControl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import websocket.messages.MoveMessage;
+import websocket.messages.NotificationMessage;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GameRegistryTests {
+
+    @Test
+    @DisplayName("Create, Join and Move")
+    public void createJoinMove() throws InvalidMoveException {
+        var registry = new GameRegistry();
+        var created = registry.create("first");
+
+        Assertions.assertTrue(registry.join(created.gameID(), ChessGame.TeamColor.WHITE, "alice"));
+        Assertions.assertFalse(registry.join(created.gameID(), ChessGame.TeamColor.WHITE, "bob"));
+        Assertions.assertTrue(registry.join(created.gameID(), ChessGame.TeamColor.BLACK, "bob"));
+
+        registry.makeMove(created.gameID(), new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        var game = registry.get(created.gameID());
+        Assertions.assertEquals("alice", game.whiteUsername());
+        Assertions.assertEquals("bob", game.blackUsername());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.game().getTeamTurn());
+        Assertions.assertEquals(1, registry.list().size());
+    }
+
+    @Test
+    @DisplayName("Unknown Game")
+    public void unknownGame() {
+        var registry = new GameRegistry();
+        Assertions.assertNull(registry.get(42));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> registry.join(42, ChessGame.TeamColor.WHITE, "alice"));
+    }
+
+    @Test
+    @DisplayName("Each Node Creates And Owns Its Own Game IDs")
+    public void nodeOwnership() {
+        var first = new GameRegistry(0, 3);
+        var third = new GameRegistry(2, 3);
+        Assertions.assertEquals(1, first.create("a").gameID());
+        Assertions.assertEquals(4, first.create("b").gameID());
+        Assertions.assertEquals(3, third.create("c").gameID());
+        Assertions.assertEquals(6, third.create("d").gameID());
+        Assertions.assertTrue(first.owns(7));
+        Assertions.assertFalse(first.owns(6));
+        Assertions.assertTrue(third.owns(9));
+        Assertions.assertFalse(third.owns(0));
+        Assertions.assertTrue(new GameRegistry().owns(5));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new GameRegistry(3, 3));
+    }
+
+    @Test
+    @DisplayName("Concurrent Joins Take Each Seat Once")
+    public void concurrentJoins() throws Exception {
+        var registry = new GameRegistry();
+        var gameIDs = new ArrayList<Integer>();
+        for(int i = 0; i < 50; i++){
+            gameIDs.add(registry.create("game " + i).gameID());
+        }
+
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            var results = new ArrayList<Future<Boolean>>();
+            for(int player = 0; player < 8; player++){
+                String username = "player" + player;
+                for(int gameID : gameIDs){
+                    Callable<Boolean> join = () -> registry.join(gameID, ChessGame.TeamColor.WHITE, username);
+                    results.add(executor.submit(join));
+                }
+            }
+            int seated = 0;
+            for(var result : results){
+                if(result.get()){
+                    seated++;
+                }
+            }
+            Assertions.assertEquals(gameIDs.size(), seated);
+        }
+    }
+
+    @Test
+    @DisplayName("Cursor Pagination")
+    public void cursorPagination() {
+        var registry = new GameRegistry();
+        for(int i = 0; i < 7; i++){
+            registry.create("game " + i);
+        }
+
+        var seen = new ArrayList<Integer>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var page = registry.listGames(cursor, 3, Set.of(), null);
+            page.games().forEach(game -> seen.add(game.gameID()));
+            cursor = page.nextCursor();
+            pages++;
+        } while(cursor != null);
+
+        Assertions.assertEquals(3, pages);
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), seen);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> registry.listGames("not a cursor", 3, Set.of(), null));
+    }
+
+    @Test
+    @DisplayName("Listing Filters")
+    public void listingFilters() throws InvalidMoveException {
+        var registry = new GameRegistry();
+        int open = registry.create("open").gameID();
+        int full = registry.create("full").gameID();
+        int mate = registry.create("mate").gameID();
+        registry.join(full, ChessGame.TeamColor.WHITE, "alice");
+        registry.join(full, ChessGame.TeamColor.BLACK, "bob");
+        registry.join(mate, ChessGame.TeamColor.WHITE, "alice");
+        for(String uci : new String[] {"f2f3", "e7e5", "g2g4", "d8h4"}){
+            registry.makeMove(mate, ChessNotation.fromUci(uci));
+        }
+
+        Assertions.assertEquals(List.of(open, mate),
+                ids(registry.listGames(null, 10, EnumSet.of(GameRegistry.Filter.OPEN), null)));
+        Assertions.assertEquals(List.of(full, mate),
+                ids(registry.listGames(null, 10, EnumSet.of(GameRegistry.Filter.MINE), "alice")));
+        Assertions.assertEquals(List.of(mate),
+                ids(registry.listGames(null, 10, EnumSet.of(GameRegistry.Filter.FINISHED), null)));
+        Assertions.assertEquals(List.of(full),
+                ids(registry.listGames(null, 10, EnumSet.of(GameRegistry.Filter.MINE), "bob")));
+    }
+
+    @Test
+    @DisplayName("Versions Change With The Game")
+    public void versions() throws InvalidMoveException {
+        var registry = new GameRegistry();
+        long listing = registry.listingVersion();
+        int gameID = registry.create("game").gameID();
+        Assertions.assertNotEquals(listing, registry.listingVersion());
+
+        listing = registry.listingVersion();
+        long game = registry.gameVersion(gameID);
+        registry.join(gameID, ChessGame.TeamColor.WHITE, "alice");
+        Assertions.assertNotEquals(listing, registry.listingVersion());
+        Assertions.assertNotEquals(game, registry.gameVersion(gameID));
+
+        listing = registry.listingVersion();
+        game = registry.gameVersion(gameID);
+        registry.makeMove(gameID, ChessNotation.fromUci("e2e4"));
+        Assertions.assertEquals(listing, registry.listingVersion());
+        Assertions.assertNotEquals(game, registry.gameVersion(gameID));
+
+        game = registry.gameVersion(gameID);
+        Assertions.assertFalse(registry.join(gameID, ChessGame.TeamColor.WHITE, "bob"));
+        Assertions.assertEquals(game, registry.gameVersion(gameID));
+    }
+
+    @Test
+    @DisplayName("Recent Moves Can Be Replayed")
+    public void recentMovesReplayed() throws InvalidMoveException {
+        var registry = new GameRegistry();
+        int gameID = registry.create("game").gameID();
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        for(int i = 0; i < 40; i++){
+            registry.makeMove(gameID, ChessNotation.fromUci(shuffle[i % shuffle.length]));
+        }
+
+        var missed = registry.eventsSince(gameID, 38);
+        Assertions.assertEquals(2, missed.size());
+        var first = (MoveMessage) missed.get(0);
+        Assertions.assertEquals(39, first.getSequence());
+        Assertions.assertEquals(ChessNotation.fromUci("f3g1"), first.getMove());
+        Assertions.assertEquals(40, ((MoveMessage) missed.get(1)).getSequence());
+        Assertions.assertTrue(registry.eventsSince(gameID, 40).isEmpty());
+        Assertions.assertEquals(GameRegistry.REPLAY_EVENTS,
+                registry.eventsSince(gameID, 40 - GameRegistry.REPLAY_EVENTS).size());
+
+        Assertions.assertNull(registry.eventsSince(gameID, 39 - GameRegistry.REPLAY_EVENTS));
+        Assertions.assertNull(registry.eventsSince(gameID, 41));
+        Assertions.assertNull(registry.eventsSince(gameID, -1));
+    }
+
+    @Test
+    @DisplayName("Resignations And Departures Are Replayed")
+    public void gameEventsReplayed() throws InvalidMoveException {
+        var registry = new GameRegistry();
+        int gameID = registry.create("game").gameID();
+        registry.join(gameID, ChessGame.TeamColor.WHITE, "alice");
+        registry.join(gameID, ChessGame.TeamColor.BLACK, "bob");
+        registry.makeMove(gameID, ChessNotation.fromUci("e2e4"));
+
+        Assertions.assertNull(registry.resign(gameID, "carol"));
+        var resigned = registry.resign(gameID, "bob");
+        Assertions.assertEquals(new NotificationMessage("bob resigned", 2), resigned);
+        Assertions.assertNull(registry.resign(gameID, "alice"));
+        var left = registry.leave(gameID, "alice");
+        Assertions.assertEquals(new NotificationMessage("alice left the game", 3), left);
+        Assertions.assertNull(registry.leave(gameID, "alice"));
+
+        Assertions.assertEquals(List.of(resigned, left), registry.eventsSince(gameID, 1));
+        Assertions.assertEquals(3, registry.load(gameID).getSequence());
+        Assertions.assertEquals(resigned, registry.ending(gameID));
+    }
+
+    private static List<Integer> ids(GamePage page) {
+        return page.games().stream().map(GameSummary::gameID).toList();
+    }
+
+    @Test
+    @DisplayName("Clocks Charge Each Move And Flag")
+    public void clocks() throws InvalidMoveException {
+        var now = new AtomicLong();
+        var registry = new GameRegistry(now::get);
+        int gameID = registry.create("timed", new TimeControl(1000, 100)).gameID();
+        Assertions.assertEquals(-1, registry.millisToFlag(gameID));
+
+        now.addAndGet(5_000_000_000L);
+        var first = registry.makeMove(gameID, ChessNotation.fromUci("e2e4"));
+        Assertions.assertEquals(new ClockTimes(1100, 1000), first.getClock());
+        Assertions.assertEquals(1000, registry.millisToFlag(gameID));
+
+        now.addAndGet(400_000_000L);
+        Assertions.assertEquals(600, registry.millisToFlag(gameID));
+        Assertions.assertEquals(new ClockTimes(1100, 600), registry.load(gameID).getClock());
+        Assertions.assertNull(registry.flag(gameID));
+        var second = registry.makeMove(gameID, ChessNotation.fromUci("e7e5"));
+        Assertions.assertEquals(new ClockTimes(1100, 700), second.getClock());
+
+        now.addAndGet(1_100_000_000L);
+        Assertions.assertEquals(0, registry.millisToFlag(gameID));
+        var ex = Assertions.assertThrows(InvalidMoveException.class,
+                () -> registry.makeMove(gameID, ChessNotation.fromUci("d2d4")));
+        Assertions.assertEquals("You ran out of time", ex.getMessage());
+        Assertions.assertFalse(registry.isFinished(gameID));
+        Assertions.assertEquals(new NotificationMessage("White ran out of time", 3), registry.flag(gameID));
+        Assertions.assertTrue(registry.isFinished(gameID));
+        Assertions.assertNull(registry.flag(gameID));
+        Assertions.assertEquals(-1, registry.millisToFlag(gameID));
+
+        int untimed = registry.create("untimed").gameID();
+        Assertions.assertNull(registry.makeMove(untimed, ChessNotation.fromUci("e2e4")).getClock());
+        Assertions.assertNull(registry.flag(untimed));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TimeControl(0, 0));
+    }
+}
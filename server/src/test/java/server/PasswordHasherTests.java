@@ -0,0 +1,88 @@
+package server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+public class PasswordHasherTests {
+
+    @Test
+    @DisplayName("Hash and Verify")
+    public void hashAndVerify() {
+        var hasher = new PasswordHasher(4, 10);
+        try {
+            String hash = hasher.hash("secret").join();
+            Assertions.assertNotEquals("secret", hash);
+            Assertions.assertTrue(hasher.verify("secret", hash).join());
+            Assertions.assertFalse(hasher.verify("wrong", hash).join());
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Full Queue Is Refused")
+    public void fullQueueRefused() {
+        var hasher = new PasswordHasher(12, 2, 1);
+        var accepted = new ArrayList<CompletableFuture<String>>();
+        try {
+            Assertions.assertThrows(RejectedExecutionException.class, () -> {
+                for(int i = 0; i < 10; i++){
+                    accepted.add(hasher.hash("password" + i));
+                }
+            });
+            Assertions.assertEquals(1, hasher.rejectedCount());
+            Assertions.assertEquals(2, hasher.queueHighWaterMark());
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Registration Answers 503 When Full")
+    public void registrationAnswers503() {
+        var properties = new Properties();
+        properties.setProperty("server.password.bcryptCost", "12");
+        properties.setProperty("server.password.threads", "1");
+        properties.setProperty("server.password.queueCapacity", "1");
+        properties.setProperty("server.rateLimit.user.capacity", "0");
+        var server = new Server(ServerProfile.fromProperties(properties));
+        int port = server.run(0);
+        try {
+            var http = HttpClient.newHttpClient();
+            var responses = new ArrayList<CompletableFuture<HttpResponse<String>>>();
+            for(int i = 0; i < 8; i++){
+                var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/user"))
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"username\":\"u" + i + "\",\"password\":\"pw\",\"email\":\"e\"}")).build();
+                responses.add(http.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            int registered = 0;
+            int busy = 0;
+            for(var future : responses){
+                HttpResponse<String> response = future.join();
+                if(response.statusCode() == 503){
+                    busy++;
+                    Assertions.assertEquals("1", response.headers().firstValue("Retry-After").orElseThrow());
+                    Assertions.assertTrue(response.body().contains("Error: server busy"), response.body());
+                } else {
+                    Assertions.assertEquals(200, response.statusCode(), response.body());
+                    registered++;
+                }
+            }
+            Assertions.assertTrue(busy > 0, "No registration was refused");
+            Assertions.assertTrue(registered >= 1, "No registration went through");
+        } finally {
+            server.stop();
+        }
+    }
+}
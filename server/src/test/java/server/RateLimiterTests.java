@@ -0,0 +1,87 @@
+package server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Properties;
+
+public class RateLimiterTests {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    @DisplayName("Burst Then Refill")
+    public void burstThenRefill() {
+        var limiter = new RateLimiter(3, 1);
+        long now = 0;
+        for(int i = 0; i < 3; i++){
+            Assertions.assertEquals(0, limiter.tryAcquire("client", now));
+        }
+        long wait = limiter.tryAcquire("client", now);
+        Assertions.assertTrue(wait > 0 && wait <= SECOND, "Should wait about a second, waited " + wait);
+
+        Assertions.assertEquals(0, limiter.tryAcquire("other", now));
+        Assertions.assertEquals(0, limiter.tryAcquire("client", now + SECOND));
+        Assertions.assertTrue(limiter.tryAcquire("client", now + SECOND) > 0);
+        for(int i = 0; i < 3; i++){
+            Assertions.assertEquals(0, limiter.tryAcquire("client", now + 10 * SECOND));
+        }
+    }
+
+    @Test
+    @DisplayName("Refund Returns A Token")
+    public void refund() {
+        var limiter = new RateLimiter(2, 1);
+        Assertions.assertEquals(0, limiter.tryAcquire("ip:a", 0));
+        Assertions.assertEquals(0, limiter.tryAcquire("ip:a", 0));
+        Assertions.assertTrue(limiter.tryAcquire("ip:a", 0) > 0);
+        limiter.refund("ip:a");
+        Assertions.assertEquals(0, limiter.tryAcquire("ip:a", 0));
+        Assertions.assertTrue(limiter.tryAcquire("ip:a", 0) > 0);
+    }
+
+    @Test
+    @DisplayName("Rotating Keys Don't Sweep Every Request")
+    public void rotatingKeys() {
+        var limiter = new RateLimiter(3, 1);
+        for(int i = 0; i < 50_000; i++){
+            Assertions.assertEquals(0, limiter.tryAcquire("ip:" + i, 0));
+        }
+        Assertions.assertEquals(3, limiter.cleanups());
+
+        for(int i = 0; i < 50_000; i++){
+            limiter.tryAcquire("later:" + i, 10 * SECOND);
+        }
+        Assertions.assertTrue(limiter.cleanups() <= 5, "Swept " + limiter.cleanups() + " times");
+    }
+
+    @Test
+    @DisplayName("Server Answers 429")
+    public void serverAnswers429() throws IOException, InterruptedException {
+        var properties = new Properties();
+        properties.setProperty("server.rateLimit.user.capacity", "3");
+        var server = new Server(ServerProfile.fromProperties(properties));
+        int port = server.run(0);
+        try {
+            var http = HttpClient.newHttpClient();
+            // an empty body is a bad request, which still spends a token
+            var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/user"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{}")).build();
+            HttpResponse<String> response;
+            int allowed = 0;
+            while((response = http.send(request, HttpResponse.BodyHandlers.ofString())).statusCode() == 400){
+                allowed++;
+            }
+            Assertions.assertEquals(3, allowed);
+            Assertions.assertEquals(429, response.statusCode());
+            Assertions.assertTrue(response.headers().firstValue("Retry-After").isPresent());
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+public class ResponseCacheTests {
+    private final ResponseCache cache = new ResponseCache(60_000);
+    private final HttpClient http = HttpClient.newHttpClient();
+    private Server server;
+    private int port;
+    private long version;
+    private int serialized;
+
+    @BeforeEach
+    public void setup() {
+        server = new Server(false);
+        server.javalin().get("/games", ctx -> cache.send(ctx, "games", version, () -> {
+            serialized++;
+            return List.of("game " + version, "x".repeat(2_000));
+        }));
+        port = server.run(0);
+    }
+
+    @AfterEach
+    public void stop() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Serialized Once Per Version")
+    public void serializedOnce() throws IOException, InterruptedException {
+        String plain = body(get(null));
+        Assertions.assertTrue(plain.startsWith("[\"game 0\""));
+        Assertions.assertEquals(plain, body(get("gzip")));
+        Assertions.assertEquals(plain, body(get("deflate")));
+        Assertions.assertEquals(plain, body(get("br, gzip;q=0, deflate")));
+        Assertions.assertEquals(1, serialized);
+        Assertions.assertEquals("Accept-Encoding", get("gzip").headers().firstValue("Vary").orElseThrow());
+
+        version++;
+        Assertions.assertTrue(body(get("gzip")).startsWith("[\"game 1\""));
+        Assertions.assertEquals(2, serialized);
+    }
+
+    @Test
+    @DisplayName("Encoding Follows q Values")
+    public void encodingFollowsQValues() {
+        Assertions.assertEquals("gzip", ResponseCache.chooseEncoding("gzip, deflate"));
+        Assertions.assertEquals("deflate", ResponseCache.chooseEncoding("gzip;q=0.5, deflate"));
+        Assertions.assertEquals("deflate", ResponseCache.chooseEncoding("deflate, gzip;q=0.9"));
+        Assertions.assertEquals("identity", ResponseCache.chooseEncoding("gzip;q=0.2, identity"));
+        Assertions.assertEquals("gzip", ResponseCache.chooseEncoding("gzip;q=0.2"));
+        Assertions.assertEquals("gzip", ResponseCache.chooseEncoding("*"));
+        Assertions.assertEquals("identity", ResponseCache.chooseEncoding("br, gzip;q=0, deflate;q=0"));
+        Assertions.assertEquals("identity", ResponseCache.chooseEncoding(null));
+    }
+
+    private HttpResponse<byte[]> get(String acceptEncoding) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/games"));
+        if(acceptEncoding != null){
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static String body(HttpResponse<byte[]> response) throws IOException {
+        Assertions.assertEquals(200, response.statusCode());
+        InputStream in = new ByteArrayInputStream(response.body());
+        switch (response.headers().firstValue("Content-Encoding").orElse("")) {
+            case "gzip" -> in = new GZIPInputStream(in);
+            case "deflate" -> in = new InflaterInputStream(in);
+            default -> { }
+        }
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+}
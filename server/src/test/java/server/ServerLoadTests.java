@@ -0,0 +1,83 @@
+package server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load test comparing the server on platform threads and on virtual threads.
+ * Every request waits {@value #BLOCK_MILLIS} ms the way a handler waiting on
+ * the database would. It is skipped in normal builds; run it by hand with
+ * <pre>
+ * mvn -pl server test -Dtest=ServerLoadTests -Dchess.loadTest=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "chess.loadTest", matches = "true")
+public class ServerLoadTests {
+    private static final int CLIENTS = 500;
+    private static final int REQUESTS_PER_CLIENT = 10;
+    private static final int BLOCK_MILLIS = 50;
+
+    @Test
+    @DisplayName("Blocking Handlers, Platform vs Virtual Threads")
+    public void blockingHandlers() throws Exception {
+        for(boolean virtual : new boolean[] {false, true, false, true}){
+            var server = new Server(virtual);
+            server.javalin().get("/blocking", ctx -> {
+                Thread.sleep(BLOCK_MILLIS);
+                ctx.result("ok");
+            });
+            int port = server.run(0);
+            try {
+                report(virtual ? "virtual" : "platform", load(port));
+            } finally {
+                server.stop();
+            }
+        }
+    }
+
+    private static ArrayList<Long> load(int port) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/blocking")).build();
+        var latencies = new ArrayList<Long>(CLIENTS * REQUESTS_PER_CLIENT);
+        try (var clients = Executors.newVirtualThreadPerTaskExecutor();
+             var http = HttpClient.newBuilder().executor(clients).build()) {
+            var results = new ArrayList<Future<long[]>>(CLIENTS);
+            for(int i = 0; i < CLIENTS; i++){
+                results.add(clients.submit(() -> {
+                    long[] times = new long[REQUESTS_PER_CLIENT];
+                    for(int r = 0; r < REQUESTS_PER_CLIENT; r++){
+                        long start = System.nanoTime();
+                        var response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                        Assertions.assertEquals(200, response.statusCode());
+                        times[r] = (System.nanoTime() - start) / 1_000_000;
+                    }
+                    return times;
+                }));
+            }
+            for(var result : results){
+                for(long time : result.get()){
+                    latencies.add(time);
+                }
+            }
+        }
+        return latencies;
+    }
+
+    private static void report(String mode, ArrayList<Long> latencies) {
+        Collections.sort(latencies);
+        System.out.printf("%-8s %d requests: p50 %d ms, p99 %d ms, max %d ms%n", mode, latencies.size(),
+                latencies.get(latencies.size() / 2),
+                latencies.get(latencies.size() * 99 / 100),
+                latencies.get(latencies.size() - 1));
+    }
+}
@@ -0,0 +1,128 @@
+package server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Properties;
+
+public class ServerProfileTests {
+
+    @Test
+    @DisplayName("Read Properties Over Defaults")
+    public void readProperties() {
+        var properties = new Properties();
+        properties.setProperty("server.threads.max", "64");
+        properties.setProperty("server.request.maxSize", "10_000");
+        properties.setProperty("server.http.h2c", "TRUE");
+        ServerProfile profile = ServerProfile.fromProperties(properties);
+
+        ServerProfile defaults = ServerProfile.defaults();
+        Assertions.assertEquals(64, profile.maxThreads());
+        Assertions.assertEquals(10_000, profile.maxRequestSize());
+        Assertions.assertTrue(profile.http2());
+        Assertions.assertEquals(defaults.minThreads(), profile.minThreads());
+        Assertions.assertEquals(defaults.keepAlive(), profile.keepAlive());
+        Assertions.assertEquals(defaults.idleTimeoutMillis(), profile.idleTimeoutMillis());
+        Assertions.assertEquals(defaults.heartbeatMillis(), profile.heartbeatMillis());
+        Assertions.assertEquals(PasswordHasher.DEFAULT_COST, profile.bcryptCost());
+        Assertions.assertEquals(0, profile.hashThreads());
+
+        properties.setProperty("server.password.bcryptCost", "12");
+        properties.setProperty("server.password.threads", "2");
+        properties.setProperty("server.password.queueCapacity", "500");
+        ServerProfile hashing = ServerProfile.fromProperties(properties);
+        Assertions.assertEquals(12, hashing.bcryptCost());
+        Assertions.assertEquals(2, hashing.hashThreads());
+        Assertions.assertEquals(500, hashing.hashQueueCapacity());
+        properties.setProperty("server.password.bcryptCost", "3");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ServerProfile.fromProperties(properties));
+        properties.setProperty("server.password.bcryptCost", "12");
+        properties.setProperty("server.password.queueCapacity", "0");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ServerProfile.fromProperties(properties));
+        properties.remove("server.password.queueCapacity");
+
+        properties.setProperty("server.rateLimit.session.capacity", "20");
+        properties.setProperty("server.rateLimit.session.perSecond", "0.5");
+        properties.setProperty("server.rateLimit.game.capacity", "0");
+        ServerProfile limited = ServerProfile.fromProperties(properties);
+        Assertions.assertEquals(new ServerProfile.RateLimit(20, 0.5), limited.sessionRateLimit());
+        Assertions.assertEquals(defaults.userRateLimit(), limited.userRateLimit());
+        Assertions.assertNull(limited.gameRateLimit().limiter());
+        properties.setProperty("server.rateLimit.game.perSecond", "0");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ServerProfile.fromProperties(properties));
+        properties.remove("server.rateLimit.game.perSecond");
+
+        properties.setProperty("server.auth.cacheMillis", "5000");
+        Assertions.assertEquals(5000, ServerProfile.fromProperties(properties).authCacheMillis());
+        Assertions.assertEquals(defaults.authCacheEntries(), ServerProfile.fromProperties(properties).authCacheEntries());
+        properties.setProperty("server.auth.cacheEntries", "0");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ServerProfile.fromProperties(properties));
+        properties.remove("server.auth.cacheEntries");
+
+        properties.setProperty("server.ws.heartbeatMillis", "60000");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ServerProfile.fromProperties(properties));
+        properties.setProperty("server.ws.heartbeatMillis", "0");
+        Assertions.assertEquals(0, ServerProfile.fromProperties(properties).heartbeatMillis());
+        properties.setProperty("server.ws.eventBus", "embedded");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ServerProfile.fromProperties(properties));
+        properties.setProperty("server.ws.eventBus", " broker.internal:7400 ");
+        Assertions.assertEquals("broker.internal:7400", ServerProfile.fromProperties(properties).eventBus());
+
+        properties.setProperty("server.http.keepAlive", "yes");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ServerProfile.fromProperties(properties));
+        properties.remove("server.http.keepAlive");
+        properties.setProperty("server.threads.min", "100");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ServerProfile.fromProperties(properties));
+    }
+
+    @Test
+    @DisplayName("Server Hashes With Profile Settings")
+    public void serverHashesWithProfile() throws Exception {
+        var properties = new Properties();
+        properties.setProperty("server.password.bcryptCost", "5");
+        properties.setProperty("server.password.queueCapacity", "7");
+        var server = new Server(ServerProfile.fromProperties(properties));
+        try {
+            Assertions.assertTrue(server.hasher().hash("secret").get().startsWith("$2a$05$"));
+            Assertions.assertEquals(7, server.hasher().remainingCapacity());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Serve HTTP/2 Over Cleartext")
+    public void serveH2c() throws IOException, InterruptedException {
+        var properties = new Properties();
+        properties.setProperty("server.http.h2c", "true");
+        properties.setProperty("server.request.maxSize", "100");
+        var server = new Server(ServerProfile.fromProperties(properties));
+        server.javalin().get("/echo", ctx -> ctx.result("get"));
+        server.javalin().post("/echo", ctx -> ctx.result(ctx.body()));
+        int port = server.run(0);
+        try {
+            var http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+            var uri = URI.create("http://localhost:" + port + "/echo");
+            // The client only offers the h2c upgrade on requests without a body
+            var upgrade = http.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(HttpClient.Version.HTTP_2, upgrade.version());
+
+            var small = http.send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString("hi")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(HttpClient.Version.HTTP_2, small.version());
+            Assertions.assertEquals("hi", small.body());
+
+            var large = http.send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString("x".repeat(200)))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(413, large.statusCode());
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TimerWheelTests {
+
+    @Test
+    @DisplayName("Timeouts Fire On Their Tick At Every Level")
+    public void firesOnTime() {
+        var wheel = new TimerWheel(1);
+        long[] delays = {1, 2, 63, 64, 65, 4095, 4096, 4097, 300_000, 20_000_000};
+        long[] fired = new long[delays.length];
+        long[] now = {0};
+        for(int i = 0; i < delays.length; i++){
+            int index = i;
+            wheel.schedule(delays[i], () -> fired[index] = now[0]);
+        }
+        Assertions.assertEquals(delays.length, wheel.pending());
+        while(wheel.pending() > 0){
+            now[0]++;
+            wheel.tick();
+        }
+        Assertions.assertArrayEquals(delays, fired);
+    }
+
+    @Test
+    @DisplayName("Cancelled Timeouts Don't Run")
+    public void cancel() {
+        var wheel = new TimerWheel(10);
+        List<String> ran = new ArrayList<>();
+        var kept = wheel.schedule(25, () -> ran.add("kept"));
+        var cancelled = wheel.schedule(25, () -> ran.add("cancelled"));
+        var far = wheel.schedule(100_000, () -> ran.add("far"));
+        Assertions.assertTrue(cancelled.cancel());
+        Assertions.assertFalse(cancelled.cancel());
+        Assertions.assertTrue(far.cancel());
+        Assertions.assertEquals(1, wheel.pending());
+
+        wheel.tick();
+        wheel.tick();
+        Assertions.assertTrue(ran.isEmpty());
+        wheel.tick();
+        Assertions.assertEquals(List.of("kept"), ran);
+        Assertions.assertTrue(kept.isExpired());
+        Assertions.assertFalse(kept.cancel());
+        Assertions.assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    @DisplayName("Cancelling Unlinks The Timeout")
+    public void cancelUnlinks() {
+        var wheel = new TimerWheel(10);
+        List<TimerWheel.Timeout> timeouts = new ArrayList<>();
+        for(int i = 0; i < 1_000; i++){
+            timeouts.add(wheel.schedule(10L * i * i, () -> { }));
+        }
+        Assertions.assertEquals(1_000, wheel.bucketed());
+        for(int i = 0; i < timeouts.size(); i += 2){
+            timeouts.get(i).cancel();
+        }
+        Assertions.assertEquals(500, wheel.bucketed());
+        Assertions.assertEquals(500, wheel.pending());
+        for(TimerWheel.Timeout timeout : timeouts){
+            timeout.cancel();
+        }
+        Assertions.assertEquals(0, wheel.bucketed());
+    }
+
+    @Test
+    @DisplayName("Tasks Scheduled From Tasks And A Failing Task")
+    public void reschedule() {
+        var wheel = new TimerWheel(1);
+        List<Integer> ran = new ArrayList<>();
+        wheel.schedule(1, () -> {
+            throw new IllegalStateException("expected by test");
+        });
+        wheel.schedule(1, () -> wheel.schedule(70, () -> ran.add(2)));
+        wheel.schedule(1, () -> ran.add(1));
+        for(int i = 0; i < 71; i++){
+            wheel.tick();
+        }
+        Assertions.assertEquals(List.of(1, 2), ran);
+    }
+
+    @Test
+    @DisplayName("Running Wheel Keeps Time")
+    public void runningWheel() throws InterruptedException {
+        var wheel = TimerWheel.start("test-wheel", 5);
+        try {
+            var done = new CountDownLatch(1);
+            long start = System.nanoTime();
+            wheel.schedule(50, done::countDown);
+            Assertions.assertTrue(done.await(2, TimeUnit.SECONDS));
+            Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        } finally {
+            wheel.stop();
+        }
+    }
+}
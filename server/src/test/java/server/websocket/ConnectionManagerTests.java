@@ -0,0 +1,179 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import websocket.MessageJson;
+import websocket.messages.BatchMessage;
+import websocket.messages.NotificationMessage;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ConnectionManagerTests {
+
+    @Test
+    @DisplayName("Broadcast Serializes Once")
+    public void broadcastSerializesOnce() {
+        var manager = new ConnectionManager();
+        var sent = new ArrayList<String>();
+        List<Connection> connections = new ArrayList<>();
+        for(int i = 0; i < 5; i++){
+            connections.add(manager.add("user" + i, 1, true, session(sent, true, null)));
+        }
+        manager.add("elsewhere", 2, true, session(sent, true, null));
+
+        manager.broadcast(1, connections.get(0), new NotificationMessage("hello"));
+        Assertions.assertEquals(4, sent.size());
+        for(String json : sent){
+            Assertions.assertSame(sent.get(0), json);
+        }
+        Assertions.assertTrue(sent.get(0).contains("hello"));
+
+        manager.remove(connections.get(1).getSession());
+        sent.clear();
+        manager.broadcast(1, null, new NotificationMessage("again"));
+        Assertions.assertEquals(4, sent.size());
+    }
+
+    @Test
+    @DisplayName("Slow Consumer Is Disconnected")
+    public void slowConsumerDisconnected() {
+        var manager = new ConnectionManager(2, Connection.SlowConsumerPolicy.DISCONNECT, 0);
+        var fastSent = new ArrayList<String>();
+        var slowSent = new ArrayList<String>();
+        var slowClosed = new AtomicBoolean();
+        Connection fast = manager.add("player", 1, false, session(fastSent, true, null));
+        Connection slow = manager.add("observer", 1, true, session(slowSent, false, slowClosed));
+
+        for(int i = 0; i < 4; i++){
+            manager.broadcast(1, null, new NotificationMessage("move " + i));
+        }
+        Assertions.assertEquals(4, fastSent.size());
+        Assertions.assertEquals(1, slowSent.size());
+        Assertions.assertTrue(slow.isClosed());
+        Assertions.assertTrue(slowClosed.get());
+        Assertions.assertEquals(1, manager.evictedCount());
+        Assertions.assertEquals(2, manager.queueHighWaterMark());
+        Assertions.assertNull(manager.get(slow.getSession()));
+        Assertions.assertSame(fast, manager.get(fast.getSession()));
+    }
+
+    @Test
+    @DisplayName("Slow Consumer Misses Messages")
+    public void slowConsumerDropped() {
+        var manager = new ConnectionManager(2, Connection.SlowConsumerPolicy.DROP, 0);
+        var slowSent = new ArrayList<String>();
+        Connection slow = manager.add("observer", 1, true, session(slowSent, false, null));
+
+        for(int i = 0; i < 5; i++){
+            manager.broadcast(1, null, new NotificationMessage("move " + i));
+        }
+        Assertions.assertFalse(slow.isClosed());
+        Assertions.assertEquals(2, slow.queueDepth());
+        Assertions.assertEquals(2, manager.droppedCount());
+
+        slow.writeSuccess();
+        Assertions.assertEquals(2, slowSent.size());
+        Assertions.assertEquals(1, slow.queueDepth());
+    }
+
+    @Test
+    @DisplayName("Observers Get Batches")
+    public void observersGetBatches() throws InterruptedException {
+        var manager = new ConnectionManager(64, Connection.SlowConsumerPolicy.DISCONNECT, 60_000);
+        var playerSent = new ArrayList<String>();
+        var observerSent = new ArrayList<String>();
+        Connection player = manager.add("player", 1, false, session(playerSent, true, null));
+        Connection observer = manager.add("observer", 1, true, session(observerSent, true, null));
+        manager.add("other", 1, true, session(observerSent, true, null));
+
+        manager.broadcast(1, player, new NotificationMessage("player moved"));
+        manager.broadcast(1, null, new NotificationMessage("check"));
+        manager.broadcast(1, observer, new NotificationMessage("observer joined"));
+        Assertions.assertEquals(2, playerSent.size());
+        Assertions.assertTrue(observerSent.isEmpty());
+
+        manager.flushObservers(1);
+        Assertions.assertEquals(2, observerSent.size());
+        var expected = List.of(
+                new BatchMessage(List.of(new NotificationMessage("player moved"), new NotificationMessage("check"))),
+                new BatchMessage(List.of(new NotificationMessage("player moved"), new NotificationMessage("check"),
+                        new NotificationMessage("observer joined"))));
+        var received = observerSent.stream().map(MessageJson::parseMessage).toList();
+        Assertions.assertTrue(received.containsAll(expected), received.toString());
+
+        observerSent.clear();
+        var windowed = new ConnectionManager(64, Connection.SlowConsumerPolicy.DISCONNECT, 20);
+        windowed.add("observer", 1, true, session(observerSent, true, null));
+        windowed.broadcast(1, null, new NotificationMessage("move"));
+        for(int i = 0; i < 100 && observerSent.isEmpty(); i++){
+            Thread.sleep(10);
+        }
+        synchronized (observerSent) {
+            Assertions.assertEquals(List.of(new NotificationMessage("move")),
+                    observerSent.stream().map(MessageJson::parseMessage).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Observer Joining Mid-Window Gets Only Later Moves")
+    public void observerJoinsMidWindow() {
+        var manager = new ConnectionManager(64, Connection.SlowConsumerPolicy.DISCONNECT, 60_000);
+        var earlySent = new ArrayList<String>();
+        var lateSent = new ArrayList<String>();
+        manager.add("early", 1, true, session(earlySent, true, null));
+        manager.broadcast(1, null, new NotificationMessage("first move"));
+
+        // joins with the game as it stands after the first move
+        manager.add("late", 1, true, session(lateSent, true, null));
+        manager.broadcast(1, null, new NotificationMessage("second move"));
+        manager.flushObservers(1);
+
+        Assertions.assertEquals(List.of(new BatchMessage(List.of(new NotificationMessage("first move"),
+                new NotificationMessage("second move")))), earlySent.stream().map(MessageJson::parseMessage).toList());
+        Assertions.assertEquals(List.of(new NotificationMessage("second move")),
+                lateSent.stream().map(MessageJson::parseMessage).toList());
+        manager.close();
+    }
+
+    /**
+     * @param sent     records what is sent
+     * @param complete whether writes finish straight away, or never
+     * @param closed   set when the session is closed, may be null
+     * @return a stub session
+     */
+    static Session session(List<String> sent, boolean complete, AtomicBoolean closed) {
+        var remote = (RemoteEndpoint) Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+                new Class<?>[] {RemoteEndpoint.class}, (proxy, method, args) -> {
+                    if(method.getName().equals("sendString")){
+                        synchronized (sent) {
+                            sent.add((String) args[0]);
+                        }
+                        if(complete && args.length > 1){
+                            ((WriteCallback) args[1]).writeSuccess();
+                        }
+                    }
+                    return null;
+                });
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+                new Class<?>[] {Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getRemote" -> remote;
+                    case "isOpen" -> closed == null || !closed.get();
+                    case "close" -> {
+                        if(closed != null){
+                            closed.set(true);
+                        }
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
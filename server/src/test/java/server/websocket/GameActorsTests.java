@@ -0,0 +1,106 @@
+package server.websocket;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class GameActorsTests {
+
+    @Test
+    @DisplayName("Commands For A Game Run In Order")
+    public void commandsRunInOrder() throws InterruptedException {
+        var actors = new GameActors();
+        int games = 4;
+        int perGame = 5_000;
+        List<List<Integer>> applied = new ArrayList<>();
+        for(int g = 0; g < games; g++){
+            applied.add(new ArrayList<>());
+        }
+        var done = new CountDownLatch(games * perGame);
+
+        List<Thread> producers = new ArrayList<>();
+        for(int g = 0; g < games; g++){
+            int gameID = g;
+            producers.add(Thread.ofVirtual().start(() -> {
+                for(int i = 0; i < perGame; i++){
+                    int n = i;
+                    actors.submit(gameID, () -> {
+                        // ArrayList isn't thread safe, so a second writer would corrupt it
+                        applied.get(gameID).add(n);
+                        done.countDown();
+                    });
+                }
+            }));
+        }
+        for(Thread producer : producers){
+            producer.join();
+        }
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        for(List<Integer> game : applied){
+            Assertions.assertEquals(perGame, game.size());
+            for(int i = 0; i < perGame; i++){
+                Assertions.assertEquals(i, game.get(i));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Games Run In Parallel")
+    public void gamesRunInParallel() throws InterruptedException {
+        var actors = new GameActors();
+        var otherGameRan = new CountDownLatch(1);
+        var blockedGameFinished = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+        actors.submit(1, () -> {
+            started.countDown();
+            try {
+                if(otherGameRan.await(5, TimeUnit.SECONDS)){
+                    blockedGameFinished.countDown();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        actors.submit(1, () -> { });
+        Assertions.assertEquals(1, actors.pending(1));
+
+        actors.submit(2, otherGameRan::countDown);
+        Assertions.assertTrue(blockedGameFinished.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("A Failing Command Doesn't Stop The Game")
+    public void failingCommand() throws InterruptedException {
+        var actors = new GameActors();
+        var ran = new CountDownLatch(1);
+        actors.submit(1, () -> {
+            throw new IllegalStateException("expected by test");
+        });
+        actors.submit(1, ran::countDown);
+        Assertions.assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("A Drained Mailbox Is Removed")
+    public void drainedMailboxRemoved() {
+        var actors = new GameActors(Runnable::run);
+        var ran = new ArrayList<Integer>();
+        actors.submit(1, () -> {
+            ran.add(1);
+            actors.submit(1, () -> ran.add(2));
+            Assertions.assertEquals(1, actors.activeGames());
+        });
+        Assertions.assertEquals(List.of(1, 2), ran);
+        Assertions.assertEquals(0, actors.activeGames());
+
+        actors.submit(1, () -> ran.add(3));
+        Assertions.assertEquals(List.of(1, 2, 3), ran);
+        Assertions.assertEquals(0, actors.activeGames());
+    }
+}
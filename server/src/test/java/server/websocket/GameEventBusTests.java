@@ -0,0 +1,242 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.ChessNotation;
+import chess.InvalidMoveException;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryAuthDAO;
+import io.javalin.Javalin;
+import model.AuthData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.GameRegistry;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMessage;
+import websocket.messages.NotificationMessage;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+public class GameEventBusTests {
+
+    @Test
+    @DisplayName("Broker Relays To Every Other Node")
+    public void brokerRelays() throws IOException, InterruptedException, InvalidMoveException {
+        try (var broker = GameEventBroker.start(0);
+             var first = new SocketGameEventBus("127.0.0.1", broker.port());
+             var third = new SocketGameEventBus("127.0.0.1", broker.port())) {
+            BlockingQueue<NodeMessage> firstHeard = new LinkedBlockingQueue<>();
+            BlockingQueue<NodeMessage> thirdHeard = new LinkedBlockingQueue<>();
+            first.subscribe(firstHeard::add);
+            third.subscribe(thirdHeard::add);
+            var moved = new GameEvent("first", 7,
+                    new MoveMessage(ChessNotation.fromUci("e2e4"), MoveMessage.Status.IN_PROGRESS, 1));
+
+            try (var second = new SocketGameEventBus("127.0.0.1", broker.port())) {
+                BlockingQueue<NodeMessage> secondHeard = new LinkedBlockingQueue<>();
+                second.subscribe(secondHeard::add);
+                await(() -> broker.peerCount() == 3);
+
+                first.publish(moved);
+                first.publish(new GameEvent("first", 7, new NotificationMessage("white moved e2e4")));
+                Assertions.assertEquals(moved, secondHeard.poll(3, TimeUnit.SECONDS));
+                Assertions.assertEquals(moved, thirdHeard.poll(3, TimeUnit.SECONDS));
+                Assertions.assertEquals(new GameEvent("first", 7, new NotificationMessage("white moved e2e4")),
+                        secondHeard.poll(3, TimeUnit.SECONDS));
+                Assertions.assertNull(firstHeard.poll(200, TimeUnit.MILLISECONDS));
+                thirdHeard.poll(3, TimeUnit.SECONDS);
+            }
+
+            first.publish(moved);
+            Assertions.assertEquals(moved, thirdHeard.poll(3, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("Slow Node Is Disconnected Without Holding Up Others")
+    public void slowNodeDisconnected() throws IOException, InterruptedException {
+        try (var broker = GameEventBroker.start(InetAddress.getLoopbackAddress(), 0, 64);
+             var first = new SocketGameEventBus("127.0.0.1", broker.port());
+             var second = new SocketGameEventBus("127.0.0.1", broker.port());
+             var stalled = new Socket()) {
+            // Connects but never reads, so the broker's writes to it back up
+            stalled.setReceiveBufferSize(1024);
+            stalled.connect(new InetSocketAddress("127.0.0.1", broker.port()));
+            BlockingQueue<NodeMessage> secondHeard = new LinkedBlockingQueue<>();
+            second.subscribe(secondHeard::add);
+            await(() -> broker.peerCount() == 3);
+
+            // In lockstep with the node that reads, so only the stalled node's queue fills
+            String padding = "x".repeat(60_000);
+            for(int i = 0; i < 500; i++){
+                first.publish(new GameEvent("first", i, new NotificationMessage(padding)));
+                NodeMessage heard = secondHeard.poll(5, TimeUnit.SECONDS);
+                Assertions.assertNotNull(heard, "event " + i);
+                Assertions.assertEquals(i, heard.gameID());
+            }
+            Assertions.assertEquals(2, broker.peerCount());
+            Assertions.assertEquals(0, first.droppedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Bus Reconnects After The Broker Restarts")
+    public void busReconnects() throws IOException, InterruptedException, InvalidMoveException {
+        var broker = GameEventBroker.start(0);
+        int port = broker.port();
+        try (var first = new SocketGameEventBus("127.0.0.1", port);
+             var second = new SocketGameEventBus("127.0.0.1", port)) {
+            BlockingQueue<NodeMessage> secondHeard = new LinkedBlockingQueue<>();
+            second.subscribe(secondHeard::add);
+            await(() -> broker.peerCount() == 2);
+            Assertions.assertTrue(first.isConnected());
+
+            broker.close();
+            await(() -> !first.isConnected() && !second.isConnected());
+            Assertions.assertFalse(first.isConnected());
+            var moved = new GameEvent("first", 7,
+                    new MoveMessage(ChessNotation.fromUci("e2e4"), MoveMessage.Status.IN_PROGRESS, 1));
+            first.publish(moved);
+            Assertions.assertEquals(1, first.droppedCount());
+
+            try (var restarted = GameEventBroker.start(port)) {
+                await(() -> restarted.peerCount() == 2 && first.isConnected() && second.isConnected());
+                Assertions.assertTrue(first.isConnected());
+                Assertions.assertTrue(second.isConnected());
+                Assertions.assertEquals(2, restarted.peerCount());
+                first.publish(moved);
+                Assertions.assertEquals(moved, secondHeard.poll(3, TimeUnit.SECONDS));
+            }
+        } finally {
+            broker.close();
+        }
+    }
+
+    @Test
+    @DisplayName("In Process Bus Reaches Every Listener")
+    public void inProcessBus() {
+        var bus = new InProcessGameEventBus();
+        List<NodeMessage> heard = new ArrayList<>();
+        bus.subscribe(heard::add);
+        bus.subscribe(heard::add);
+        var event = new GameEvent("node", 1, new NotificationMessage("hello"));
+        bus.publish(event);
+        Assertions.assertEquals(List.of(event, event), heard);
+        bus.close();
+        bus.publish(event);
+        Assertions.assertEquals(2, heard.size());
+    }
+
+    @Test
+    @DisplayName("Commands And Replies Survive The Wire")
+    public void framesRoundTrip() throws InvalidMoveException {
+        List<NodeMessage> messages = List.of(
+                new GameEvent("a", 1, new NotificationMessage("white moved e2e4"), "session"),
+                new GameEvent("a", 1, new NotificationMessage("white moved e2e4")),
+                new ForwardedCommand("b", 3, "session", "black",
+                        new MakeMoveCommand("token", 3, ChessNotation.fromUci("e7e5"))),
+                new SessionReply("a", 3, "b", "session", SessionReply.Action.ADD_OBSERVER, "black", null),
+                new SessionReply("a", 3, "b", "session", SessionReply.Action.SEND, null,
+                        new ErrorMessage("Error: no move given")));
+        for(NodeMessage message : messages){
+            Assertions.assertEquals(message, SocketGameEventBus.decode(SocketGameEventBus.encode(message)));
+        }
+    }
+
+    @Test
+    @DisplayName("Commands Reach The Node That Owns The Game")
+    public void commandsReachOwner() throws DataAccessException, IOException, InterruptedException,
+            InvalidMoveException {
+        // Each node has its own games; only the tokens are shared, as with signed tokens
+        var gamesA = new GameRegistry(0, 2);
+        var gamesB = new GameRegistry(1, 2);
+        var auths = new MemoryAuthDAO();
+        int gameID = gamesA.create("game").gameID();
+        gamesA.join(gameID, ChessGame.TeamColor.WHITE, "white");
+        gamesA.join(gameID, ChessGame.TeamColor.BLACK, "black");
+        for(String user : new String[] {"white", "black", "observer"}){
+            auths.createAuth(new AuthData(user + "-token", user));
+        }
+
+        try (var broker = GameEventBroker.start(0);
+             var busA = new SocketGameEventBus("127.0.0.1", broker.port());
+             var busB = new SocketGameEventBus("127.0.0.1", broker.port())) {
+            var nodeA = Javalin.create();
+            var nodeB = Javalin.create();
+            new WebSocketHandler(gamesA, auths, new ConnectionManager(), null, busA).register(nodeA, "/ws");
+            new WebSocketHandler(gamesB, auths, new ConnectionManager(), null, busB).register(nodeB, "/ws");
+            await(() -> broker.peerCount() == 2);
+            try {
+                var white = new TestClient(nodeA.start(0).port());
+                int portB = nodeB.start(0).port();
+                var black = new TestClient(portB);
+                var observer = new TestClient(portB);
+                white.send(new UserGameCommand(UserGameCommand.CommandType.CONNECT, "white-token", gameID));
+                Assertions.assertInstanceOf(LoadGameMessage.class, white.next());
+                black.send(new UserGameCommand(UserGameCommand.CommandType.CONNECT, "black-token", gameID));
+                Assertions.assertInstanceOf(LoadGameMessage.class, black.next());
+                Assertions.assertEquals(new NotificationMessage("black joined the game as black"), white.next());
+                observer.send(new UserGameCommand(UserGameCommand.CommandType.CONNECT, "observer-token", gameID));
+                Assertions.assertInstanceOf(LoadGameMessage.class, observer.next());
+                var joined = new NotificationMessage("observer joined the game as an observer");
+                Assertions.assertEquals(joined, white.next());
+                Assertions.assertEquals(joined, black.next());
+
+                white.send(new MakeMoveCommand("white-token", gameID, ChessNotation.fromUci("e2e4")));
+                var e4 = new MoveMessage(ChessNotation.fromUci("e2e4"), MoveMessage.Status.IN_PROGRESS, 1);
+                Assertions.assertEquals(e4, white.next());
+                Assertions.assertEquals(e4, black.next());
+                Assertions.assertEquals(new NotificationMessage("white moved e2e4"), black.next());
+                Assertions.assertEquals(e4, observer.next());
+                Assertions.assertEquals(new NotificationMessage("white moved e2e4"), observer.next());
+
+                black.send(new MakeMoveCommand("black-token", gameID, ChessNotation.fromUci("e7e5")));
+                var e5 = new MoveMessage(ChessNotation.fromUci("e7e5"), MoveMessage.Status.IN_PROGRESS, 2);
+                Assertions.assertEquals(e5, black.next());
+                Assertions.assertEquals(e5, white.next());
+                Assertions.assertEquals(new NotificationMessage("black moved e7e5"), white.next());
+                Assertions.assertEquals(e5, observer.next());
+                Assertions.assertEquals(new NotificationMessage("black moved e7e5"), observer.next());
+                Assertions.assertNull(gamesB.get(gameID));
+
+                observer.send(new UserGameCommand(UserGameCommand.CommandType.LEAVE, "observer-token", gameID));
+                Assertions.assertEquals(new NotificationMessage("observer left the game"), white.next());
+                Assertions.assertEquals(new NotificationMessage("observer left the game"), black.next());
+                white.send(new MakeMoveCommand("white-token", gameID, ChessNotation.fromUci("g1f3")));
+                Assertions.assertInstanceOf(MoveMessage.class, white.next());
+                Assertions.assertInstanceOf(MoveMessage.class, black.next());
+                black.next();
+
+                black.send(new UserGameCommand(UserGameCommand.CommandType.CONNECT, "black-token", gameID + 2));
+                Assertions.assertEquals(new ErrorMessage("Error: no game with id " + (gameID + 2)), black.next());
+                black.send(new UserGameCommand(UserGameCommand.CommandType.CONNECT, "black-token", gameID + 1));
+                Assertions.assertEquals(new ErrorMessage("Error: no game with id " + (gameID + 1)), black.next());
+                Assertions.assertTrue(white.quiet());
+                Assertions.assertTrue(black.quiet());
+                Assertions.assertTrue(observer.quiet());
+            } finally {
+                nodeA.stop();
+                nodeB.stop();
+            }
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while(!condition.getAsBoolean() && System.currentTimeMillis() < deadline){
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package server.websocket;
+
+import chess.ChessGame;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryAuthDAO;
+import io.javalin.Javalin;
+import model.AuthData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.GameRegistry;
+import server.TimerWheel;
+import websocket.MessageJson;
+import websocket.commands.UserGameCommand;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.NotificationMessage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class HeartbeatTests {
+
+    @Test
+    @DisplayName("Silent And Closed Sessions Are Reaped")
+    public void reapsDeadSessions() throws InterruptedException {
+        var manager = new ConnectionManager();
+        var wheel = TimerWheel.start("test-wheel", 5);
+        var heartbeat = new Heartbeat(manager, wheel, 20, 60);
+        try {
+            var sent = new ArrayList<String>();
+            var silentClosed = new AtomicBoolean();
+            var goneClosed = new AtomicBoolean();
+            Connection live = manager.add("live", 1, false, ConnectionManagerTests.session(sent, true, null));
+            Connection silent = manager.add("silent", 1, true, ConnectionManagerTests.session(sent, true, silentClosed));
+            Connection gone = manager.add("gone", 1, true, ConnectionManagerTests.session(sent, true, goneClosed));
+            for(Connection connection : new Connection[] {live, silent, gone}){
+                heartbeat.watch(connection);
+            }
+            goneClosed.set(true);
+
+            long deadline = System.currentTimeMillis() + 2000;
+            while(heartbeat.reapedCount() < 2 && System.currentTimeMillis() < deadline){
+                live.heard();
+                Thread.sleep(10);
+            }
+            Assertions.assertEquals(2, heartbeat.reapedCount());
+            Assertions.assertSame(live, manager.get(live.getSession()));
+            Assertions.assertNull(manager.get(silent.getSession()));
+            Assertions.assertNull(manager.get(gone.getSession()));
+            Assertions.assertTrue(silentClosed.get());
+            Assertions.assertEquals(1, wheel.pending());
+
+            manager.remove(live.getSession());
+            Thread.sleep(100);
+            Assertions.assertEquals(0, wheel.pending());
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Vanished Client Is Reaped While Live One Answers Pings")
+    public void vanishedClient() throws DataAccessException, IOException, InterruptedException {
+        var games = new GameRegistry();
+        var auths = new MemoryAuthDAO();
+        int gameID = games.create("game").gameID();
+        games.join(gameID, ChessGame.TeamColor.WHITE, "white");
+        auths.createAuth(new AuthData("white-token", "white"));
+        auths.createAuth(new AuthData("gone-token", "gone"));
+
+        var manager = new ConnectionManager();
+        var wheel = TimerWheel.start("test-wheel", 10);
+        var heartbeat = new Heartbeat(manager, wheel, 50, 300);
+        var javalin = Javalin.create();
+        new WebSocketHandler(games, auths, manager, heartbeat).register(javalin, "/ws");
+        int port = javalin.start(0).port();
+        try (var gone = new Socket("localhost", port)) {
+            var white = new TestClient(port);
+            white.send(new UserGameCommand(UserGameCommand.CommandType.CONNECT, "white-token", gameID));
+            Assertions.assertInstanceOf(LoadGameMessage.class, white.next());
+
+            OutputStream out = gone.getOutputStream();
+            out.write(("GET /ws HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\nSec-WebSocket-Version: 13\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.write(textFrame(MessageJson.toJson(
+                    new UserGameCommand(UserGameCommand.CommandType.CONNECT, "gone-token", gameID))));
+            out.flush();
+            Assertions.assertInstanceOf(NotificationMessage.class, white.next());
+
+            long deadline = System.currentTimeMillis() + 3000;
+            while(heartbeat.reapedCount() == 0 && System.currentTimeMillis() < deadline){
+                Thread.sleep(20);
+            }
+            Assertions.assertEquals(1, heartbeat.reapedCount());
+            Thread.sleep(400);
+            Assertions.assertEquals(1, heartbeat.reapedCount());
+        } finally {
+            javalin.stop();
+            wheel.stop();
+        }
+    }
+
+    /**
+     * @return a client text frame, masked with a zero key so the payload is
+     * sent as is
+     */
+    private static byte[] textFrame(String text) {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[payload.length + 6];
+        frame[0] = (byte) 0x81;
+        frame[1] = (byte) (0x80 | payload.length);
+        System.arraycopy(payload, 0, frame, 6, payload.length);
+        return frame;
+    }
+}
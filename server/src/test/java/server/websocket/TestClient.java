@@ -0,0 +1,103 @@
+package server.websocket;
+
+import websocket.MessageBinary;
+import websocket.MessageJson;
+import websocket.WireFormat;
+import websocket.commands.UserGameCommand;
+import websocket.messages.ServerMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A WebSocket client for tests that queues every message it receives, as
+ * text frames or, when it asks for the binary subprotocol, binary ones
+ */
+class TestClient implements WebSocket.Listener {
+    private final BlockingQueue<ServerMessage> received = new LinkedBlockingQueue<>();
+    private final StringBuilder partial = new StringBuilder();
+    private final ByteArrayOutputStream partialBytes = new ByteArrayOutputStream();
+    private final WireFormat format;
+    private final WebSocket socket;
+
+    TestClient(int port) {
+        this(port, WireFormat.JSON);
+    }
+
+    TestClient(int port, WireFormat format) {
+        this.format = format;
+        var builder = HttpClient.newHttpClient().newWebSocketBuilder();
+        if(format == WireFormat.BINARY){
+            builder.subprotocols(WireFormat.BINARY_SUBPROTOCOL);
+        }
+        socket = builder.buildAsync(URI.create("ws://localhost:" + port + "/ws"), this).join();
+    }
+
+    void send(UserGameCommand command) {
+        if(format == WireFormat.BINARY){
+            socket.sendBinary(ByteBuffer.wrap(MessageBinary.encodeCommand(command)), true).join();
+        } else {
+            socket.sendText(MessageJson.toJson(command), true).join();
+        }
+    }
+
+    /**
+     * @return the subprotocol the server accepted, or an empty string
+     */
+    String subprotocol() {
+        return socket.getSubprotocol();
+    }
+
+    /**
+     * @return the next message, failing if none arrives within a few seconds
+     */
+    ServerMessage next() throws InterruptedException {
+        ServerMessage message = received.poll(3, TimeUnit.SECONDS);
+        if(message == null){
+            throw new AssertionError("No message received");
+        }
+        return message;
+    }
+
+    /**
+     * @return true if no message arrives within a short wait
+     */
+    boolean quiet() throws InterruptedException {
+        return received.poll(200, TimeUnit.MILLISECONDS) == null;
+    }
+
+    void close() {
+        socket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if(last){
+            received.add(MessageJson.parseMessage(partial.toString()));
+            partial.setLength(0);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        partialBytes.writeBytes(bytes);
+        if(last){
+            received.add(MessageBinary.decodeMessage(partialBytes.toByteArray()));
+            partialBytes.reset();
+        }
+        webSocket.request(1);
+        return null;
+    }
+}
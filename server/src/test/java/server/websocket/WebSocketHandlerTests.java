@@ -0,0 +1,266 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.ChessNotation;
+import chess.InvalidMoveException;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryAuthDAO;
+import io.javalin.Javalin;
+import model.AuthData;
+import model.TimeControl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.GameRegistry;
+import server.TimerWheel;
+import websocket.WireFormat;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.ResumeCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.BatchMessage;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMessage;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+public class WebSocketHandlerTests {
+    private final GameRegistry games = new GameRegistry();
+    private final MemoryAuthDAO auths = new MemoryAuthDAO();
+    private TimerWheel timers;
+    private Javalin javalin;
+    private int port;
+    private int gameID;
+
+    @BeforeEach
+    public void setup() throws DataAccessException {
+        gameID = games.create("game").gameID();
+        games.join(gameID, ChessGame.TeamColor.WHITE, "white");
+        games.join(gameID, ChessGame.TeamColor.BLACK, "black");
+        for(String user : new String[] {"white", "black", "observer"}){
+            auths.createAuth(new AuthData(user + "-token", user));
+        }
+        javalin = Javalin.create();
+        timers = TimerWheel.start("test-timers", 1);
+        new WebSocketHandler(games, auths, new ConnectionManager(), null, null, timers).register(javalin, "/ws");
+        port = javalin.start(0).port();
+    }
+
+    @AfterEach
+    public void stop() {
+        javalin.stop();
+        timers.stop();
+    }
+
+    @Test
+    @DisplayName("Moves Are Sent As Deltas")
+    public void movesAreDeltas() throws InterruptedException, InvalidMoveException {
+        TestClient white = connect("white");
+        TestClient black = connect("black");
+        white.next();
+        TestClient observer = connect("observer");
+        white.next();
+        black.next();
+
+        white.send(new MakeMoveCommand("white-token", gameID, ChessNotation.fromUci("e2e4")));
+        var expected = new MoveMessage(ChessNotation.fromUci("e2e4"), MoveMessage.Status.IN_PROGRESS, 1);
+        Assertions.assertEquals(expected, white.next());
+        Assertions.assertEquals(expected, black.next());
+        Assertions.assertEquals(expected, observer.next());
+        Assertions.assertInstanceOf(NotificationMessage.class, black.next());
+        Assertions.assertInstanceOf(NotificationMessage.class, observer.next());
+        Assertions.assertTrue(white.quiet());
+
+        observer.send(new UserGameCommand(UserGameCommand.CommandType.RESYNC, "observer-token", gameID));
+        var load = (LoadGameMessage) observer.next();
+        Assertions.assertEquals(1, load.getSequence());
+        Assertions.assertEquals(games.get(gameID).game(), load.getGame());
+    }
+
+    @Test
+    @DisplayName("Only The Player To Move Can Move")
+    public void onlyPlayerToMove() throws InterruptedException, InvalidMoveException {
+        TestClient black = connect("black");
+        TestClient observer = connect("observer");
+        black.next();
+
+        black.send(new MakeMoveCommand("black-token", gameID, ChessNotation.fromUci("e7e5")));
+        Assertions.assertInstanceOf(ErrorMessage.class, black.next());
+        observer.send(new MakeMoveCommand("observer-token", gameID, ChessNotation.fromUci("e2e4")));
+        Assertions.assertInstanceOf(ErrorMessage.class, observer.next());
+        observer.send(new UserGameCommand(UserGameCommand.CommandType.CONNECT, "bad-token", gameID));
+        Assertions.assertInstanceOf(ErrorMessage.class, observer.next());
+        Assertions.assertTrue(black.quiet());
+    }
+
+    @Test
+    @DisplayName("Checkmate Ends The Game")
+    public void checkmate() throws InterruptedException, InvalidMoveException {
+        TestClient white = connect("white");
+        TestClient black = connect("black");
+        white.next();
+
+        String[] moves = {"f2f3", "e7e5", "g2g4", "d8h4"};
+        MoveMessage moved = null;
+        for(int i = 0; i < moves.length; i++){
+            TestClient mover = i % 2 == 0 ? white : black;
+            TestClient other = i % 2 == 0 ? black : white;
+            mover.send(new MakeMoveCommand(i % 2 == 0 ? "white-token" : "black-token", gameID,
+                    ChessNotation.fromUci(moves[i])));
+            moved = (MoveMessage) mover.next();
+            Assertions.assertEquals(i + 1, moved.getSequence());
+            Assertions.assertEquals(moved, other.next());
+            Assertions.assertInstanceOf(NotificationMessage.class, other.next());
+        }
+        Assertions.assertEquals(MoveMessage.Status.CHECKMATE, moved.getStatus());
+        Assertions.assertTrue(games.isFinished(gameID));
+        Assertions.assertInstanceOf(NotificationMessage.class, black.next());
+        Assertions.assertInstanceOf(NotificationMessage.class, white.next());
+
+        white.send(new MakeMoveCommand("white-token", gameID, ChessNotation.fromUci("a2a3")));
+        Assertions.assertInstanceOf(ErrorMessage.class, white.next());
+    }
+
+    @Test
+    @DisplayName("Resume Replays Missed Moves")
+    public void resumeReplaysMissedMoves() throws InterruptedException, InvalidMoveException {
+        TestClient white = connect("white");
+        TestClient black = connect("black");
+        white.next();
+        black.close();
+        Assertions.assertTrue(white.quiet());
+
+        white.send(new MakeMoveCommand("white-token", gameID, ChessNotation.fromUci("e2e4")));
+        white.next();
+        var resumed = new TestClient(port);
+        resumed.send(new ResumeCommand("black-token", gameID, 0));
+        Assertions.assertEquals(new MoveMessage(ChessNotation.fromUci("e2e4"), MoveMessage.Status.IN_PROGRESS, 1),
+                resumed.next());
+        Assertions.assertTrue(white.quiet());
+
+        resumed.send(new MakeMoveCommand("black-token", gameID, ChessNotation.fromUci("e7e5")));
+        resumed.next();
+        white.send(new MakeMoveCommand("white-token", gameID, ChessNotation.fromUci("g1f3")));
+        white.next();
+        var again = new TestClient(port);
+        again.send(new ResumeCommand("observer-token", gameID, 1));
+        var batch = (BatchMessage) again.next();
+        Assertions.assertEquals(2, batch.getMessages().size());
+        Assertions.assertEquals(3, ((MoveMessage) batch.getMessages().get(1)).getSequence());
+
+        var ahead = new TestClient(port);
+        ahead.send(new ResumeCommand("observer-token", gameID, 99));
+        Assertions.assertEquals(3, ((LoadGameMessage) ahead.next()).getSequence());
+    }
+
+    @Test
+    @DisplayName("Running Out Of Time Ends The Game")
+    public void runningOutOfTime() throws InterruptedException, InvalidMoveException {
+        gameID = games.create("timed", new TimeControl(300, 100)).gameID();
+        games.join(gameID, ChessGame.TeamColor.WHITE, "white");
+        games.join(gameID, ChessGame.TeamColor.BLACK, "black");
+        TestClient white = connect("white");
+        TestClient black = connect("black");
+        white.next();
+
+        white.send(new MakeMoveCommand("white-token", gameID, ChessNotation.fromUci("e2e4")));
+        long moved = System.nanoTime();
+        var move = (MoveMessage) black.next();
+        Assertions.assertTrue(move.getClock().whiteMillis() > 300);
+        Assertions.assertTrue(move.getClock().blackMillis() <= 300);
+        black.next();
+
+        var flagged = (NotificationMessage) black.next();
+        long waited = (System.nanoTime() - moved) / 1_000_000;
+        Assertions.assertEquals("black ran out of time", flagged.getMessage());
+        Assertions.assertTrue(waited >= 300 && waited < 1000, "flagged after " + waited + "ms");
+        Assertions.assertEquals(move, white.next());
+        Assertions.assertEquals(flagged, white.next());
+        Assertions.assertTrue(games.isFinished(gameID));
+
+        black.send(new MakeMoveCommand("black-token", gameID, ChessNotation.fromUci("e7e5")));
+        Assertions.assertInstanceOf(ErrorMessage.class, black.next());
+        Assertions.assertTrue(white.quiet());
+    }
+
+    @Test
+    @DisplayName("Resume After Resignation Learns The Game Is Over")
+    public void resumeAfterResign() throws InterruptedException {
+        TestClient white = connect("white");
+        TestClient black = connect("black");
+        white.next();
+        white.close();
+
+        black.send(new UserGameCommand(UserGameCommand.CommandType.RESIGN, "black-token", gameID));
+        var resigned = (NotificationMessage) black.next();
+        Assertions.assertEquals(1, resigned.getSequence());
+
+        var resumed = new TestClient(port);
+        resumed.send(new ResumeCommand("white-token", gameID, 0));
+        Assertions.assertEquals(resigned, resumed.next());
+
+        var stale = new TestClient(port);
+        stale.send(new ResumeCommand("white-token", gameID, 5));
+        Assertions.assertInstanceOf(LoadGameMessage.class, stale.next());
+        Assertions.assertEquals(resigned, stale.next());
+    }
+
+    @Test
+    @DisplayName("Binary Subprotocol")
+    public void binarySubprotocol() throws InterruptedException, InvalidMoveException {
+        var white = new TestClient(port, WireFormat.BINARY);
+        Assertions.assertEquals(WireFormat.BINARY_SUBPROTOCOL, white.subprotocol());
+        white.send(new UserGameCommand(UserGameCommand.CommandType.CONNECT, "white-token", gameID));
+        Assertions.assertEquals(new ChessGame(), ((LoadGameMessage) white.next()).getGame());
+        TestClient black = connect("black");
+        Assertions.assertInstanceOf(NotificationMessage.class, white.next());
+
+        white.send(new MakeMoveCommand("white-token", gameID, ChessNotation.fromUci("e2e4")));
+        var expected = new MoveMessage(ChessNotation.fromUci("e2e4"), MoveMessage.Status.IN_PROGRESS, 1);
+        Assertions.assertEquals(expected, white.next());
+        Assertions.assertEquals(expected, black.next());
+        Assertions.assertEquals(new NotificationMessage("white moved e2e4"), black.next());
+
+        white.send(new MakeMoveCommand("white-token", gameID, ChessNotation.fromUci("d2d4")));
+        Assertions.assertEquals(new ErrorMessage("Error: It isn't your turn"), white.next());
+    }
+
+    @Test
+    @DisplayName("Deflate Is Negotiated")
+    public void deflateNegotiated() throws IOException {
+        try (var socket = new Socket("localhost", port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /ws HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\nSec-WebSocket-Version: 13\r\n"
+                    + "Sec-WebSocket-Extensions: permessage-deflate\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            var response = new StringBuilder();
+            while(!response.toString().endsWith("\r\n\r\n")){
+                int next = in.read();
+                if(next < 0){
+                    break;
+                }
+                response.append((char) next);
+            }
+            String headers = response.toString().toLowerCase();
+            Assertions.assertTrue(headers.startsWith("http/1.1 101"), headers);
+            Assertions.assertTrue(headers.contains("sec-websocket-extensions: permessage-deflate"), headers);
+        }
+    }
+
+    private TestClient connect(String user) throws InterruptedException {
+        var client = new TestClient(port);
+        client.send(new UserGameCommand(UserGameCommand.CommandType.CONNECT, user + "-token", gameID));
+        Assertions.assertInstanceOf(LoadGameMessage.class, client.next());
+        return client;
+    }
+}
@@ -0,0 +1,18 @@
+package chess;
+
+/**
+ * Keeps the board as an 8x8 array of pieces
+ */
+class ArrayBoardStorage implements BoardStorage {
+    private final ChessPiece[][] squares = new ChessPiece[8][8];
+
+    @Override
+    public ChessPiece get(int row, int col) {
+        return squares[row - 1][col - 1];
+    }
+
+    @Override
+    public void set(int row, int col, ChessPiece piece) {
+        squares[row - 1][col - 1] = piece;
+    }
+}
@@ -0,0 +1,58 @@
+package chess;
+
+/**
+ * Keeps the board as one 64 bit mask per team and piece type, bit
+ * {@code (row - 1) * 8 + (col - 1)} set where that piece stands. An extra
+ * mask of all occupied squares lets empty squares be answered with one test.
+ */
+class BitboardStorage implements BoardStorage {
+    private static final int TYPES = ChessPiece.PieceType.values().length;
+    private static final ChessPiece[] PIECES = new ChessPiece[2 * TYPES];
+
+    static {
+        for(ChessGame.TeamColor color : ChessGame.TeamColor.values()){
+            for(ChessPiece.PieceType type : ChessPiece.PieceType.values()){
+                PIECES[color.ordinal() * TYPES + type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+    }
+
+    private final long[] boards = new long[2 * TYPES];
+    private long occupied;
+
+    @Override
+    public ChessPiece get(int row, int col) {
+        long bit = bit(row, col);
+        if((occupied & bit) == 0){
+            return null;
+        }
+        for(int i = 0; i < boards.length; i++){
+            if((boards[i] & bit) != 0){
+                return PIECES[i];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void set(int row, int col, ChessPiece piece) {
+        long bit = bit(row, col);
+        if((occupied & bit) != 0){
+            for(int i = 0; i < boards.length; i++){
+                boards[i] &= ~bit;
+            }
+            occupied &= ~bit;
+        }
+        if(piece != null){
+            boards[piece.getTeamColor().ordinal() * TYPES + piece.getPieceType().ordinal()] |= bit;
+            occupied |= bit;
+        }
+    }
+
+    private static long bit(int row, int col) {
+        if(row < 1 || row > 8 || col < 1 || col > 8){
+            throw new ArrayIndexOutOfBoundsException("Square off the board: " + row + "," + col);
+        }
+        return 1L << ((row - 1) * 8 + (col - 1));
+    }
+}
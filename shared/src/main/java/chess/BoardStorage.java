@@ -0,0 +1,52 @@
+package chess;
+
+/**
+ * How a {@link ChessBoard} keeps its squares. Rows and columns are 1 to 8,
+ * matching {@link ChessPosition}.
+ * <p>
+ * The representation is picked with the {@code chess.board.storage} system
+ * property ({@code array}, {@code 0x88}, {@code 10x12} or {@code bitboard});
+ * the default is {@code array}.
+ */
+interface BoardStorage {
+    String PROPERTY = "chess.board.storage";
+
+    ChessPiece get(int row, int col);
+
+    void set(int row, int col, ChessPiece piece);
+
+    /**
+     * The available representations
+     */
+    enum Kind {
+        ARRAY("array"),
+        MAILBOX_0X88("0x88"),
+        MAILBOX_10X12("10x12"),
+        BITBOARD("bitboard");
+
+        private final String propertyValue;
+
+        Kind(String propertyValue) {
+            this.propertyValue = propertyValue;
+        }
+
+        static Kind fromProperty() {
+            String value = System.getProperty(PROPERTY, ARRAY.propertyValue);
+            for(Kind kind : values()){
+                if(kind.propertyValue.equalsIgnoreCase(value)){
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("Unknown " + PROPERTY + " value " + value);
+        }
+
+        BoardStorage create() {
+            return switch (this) {
+                case ARRAY -> new ArrayBoardStorage();
+                case MAILBOX_0X88 -> new MailboxBoardStorage();
+                case MAILBOX_10X12 -> new Mailbox120BoardStorage();
+                case BITBOARD -> new BitboardStorage();
+            };
+        }
+    }
+}
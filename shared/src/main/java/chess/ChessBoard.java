@@ -1,6 +1,15 @@
 package chess;
 
-import java.util.Arrays;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -9,11 +18,18 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessBoard.SquaresAdapterFactory.class)
 public class ChessBoard {
-    private ChessPiece[][] board;
+    /**
+     * Representation used for new boards, read from the
+     * {@value BoardStorage#PROPERTY} system property
+     */
+    static BoardStorage.Kind storageKind = BoardStorage.Kind.fromProperty();
+
+    private transient BoardStorage board;
 
     public ChessBoard() {
-        board = new ChessPiece[8][8];
+        board = storageKind.create();
     }
 
     /**
@@ -23,10 +39,7 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        int r = position.getRow() - 1;
-        int c = position.getColumn() - 1;
-        board[r][c] = piece;
-
+        board.set(position.getRow(), position.getColumn(), piece);
     }
 
     /**
@@ -37,9 +50,7 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        int r = position.getRow() - 1;
-        int c = position.getColumn() - 1;
-        return board[r][c];
+        return board.get(position.getRow(), position.getColumn());
     }
 
     @Override
@@ -47,12 +58,25 @@ public class ChessBoard {
         if (!(o instanceof ChessBoard that)) {
             return false;
         }
-        return Objects.deepEquals(board, that.board);
+        for(int r = 1; r <= 8; r++){
+            for(int c = 1; c <= 8; c++){
+                if(!Objects.equals(board.get(r, c), that.board.get(r, c))){
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        int hash = 1;
+        for(int r = 1; r <= 8; r++){
+            for(int c = 1; c <= 8; c++){
+                hash = 31 * hash + Objects.hashCode(board.get(r, c));
+            }
+        }
+        return hash;
     }
 
     /**
@@ -60,7 +84,7 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        board = new ChessPiece[8][8];
+        board = storageKind.create();
         ChessPiece.PieceType[] backRow = {
                 ChessPiece.PieceType.ROOK,
                 ChessPiece.PieceType.KNIGHT,
@@ -115,4 +139,63 @@ public class ChessBoard {
 
         }
     }
+
+    /**
+     * Writes a board as {@code {"board": [[...]]}}, an 8x8 array of pieces
+     * indexed [row - 1][col - 1], which is the form plain Gson gave the
+     * original array-backed board. The storage kind is an in-memory choice
+     * and never reaches the JSON. Adapters registered on the builder, such as
+     * {@link ChessTypeAdapters}, still take precedence.
+     */
+    static class SquaresAdapterFactory implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if(type.getRawType() != ChessBoard.class){
+                return null;
+            }
+            TypeAdapter<ChessPiece[][]> squares = gson.getAdapter(ChessPiece[][].class);
+            return (TypeAdapter<T>) new TypeAdapter<ChessBoard>() {
+                @Override
+                public void write(JsonWriter out, ChessBoard value) throws IOException {
+                    ChessPiece[][] rows = new ChessPiece[8][8];
+                    for(int r = 1; r <= 8; r++){
+                        for(int c = 1; c <= 8; c++){
+                            rows[r - 1][c - 1] = value.board.get(r, c);
+                        }
+                    }
+                    out.beginObject();
+                    out.name("board");
+                    squares.write(out, rows);
+                    out.endObject();
+                }
+
+                @Override
+                public ChessBoard read(JsonReader in) throws IOException {
+                    ChessBoard result = new ChessBoard();
+                    in.beginObject();
+                    while(in.hasNext()){
+                        if(!in.nextName().equals("board")){
+                            in.skipValue();
+                            continue;
+                        }
+                        ChessPiece[][] rows = squares.read(in);
+                        if(rows == null || rows.length != 8){
+                            throw new JsonParseException("A board needs 8 rows");
+                        }
+                        for(int r = 1; r <= 8; r++){
+                            if(rows[r - 1] == null || rows[r - 1].length != 8){
+                                throw new JsonParseException("Board row " + r + " needs 8 squares");
+                            }
+                            for(int c = 1; c <= 8; c++){
+                                result.board.set(r, c, rows[r - 1][c - 1]);
+                            }
+                        }
+                    }
+                    in.endObject();
+                    return result;
+                }
+            }.nullSafe();
+        }
+    }
 }
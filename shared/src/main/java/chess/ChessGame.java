@@ -3,6 +3,7 @@ package chess;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -245,6 +246,37 @@ public class ChessGame {
         return board;
     }
 
+    /**
+     * Gets every valid move for the team whose turn it is
+     *
+     * @return list of valid moves, empty if the team has none
+     */
+    List<ChessMove> allValidMoves() {
+        ArrayList<ChessMove> moves = new ArrayList<>();
+        for(int r = 1; r <= 8; r++){
+            for(int c = 1; c <= 8; c++){
+                ChessPosition pos = new ChessPosition(r, c);
+                ChessPiece piece = board.getPiece(pos);
+                if(piece == null || piece.getTeamColor() != teamTurn){
+                    continue;
+                }
+                moves.addAll(validMoves(pos));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * @return an independent copy of this game, so moves can be tried, or the
+     * game read, without touching the original
+     */
+    public ChessGame copy() {
+        ChessGame copy = new ChessGame();
+        copy.setBoard(copyBoard());
+        copy.setTeamTurn(teamTurn);
+        return copy;
+    }
+
     private ChessPosition findKing(TeamColor teamColor){
         for(int r = 1; r <= 8; r++){
             for(int c = 1; c <= 8; c++){
@@ -0,0 +1,120 @@
+package chess;
+
+/**
+ * Reads and writes a chess game in a compact binary form.
+ * <p>
+ * Layout (34 bytes):
+ * <pre>
+ * byte 0      format version
+ * byte 1      flags, bit 0 set when it is black's turn
+ * bytes 2-33  the board, one nibble per square starting at a1, then b1 ... h8;
+ *             the low nibble of each byte holds the earlier square
+ * </pre>
+ * A square's nibble is 0 when empty, otherwise {@code PieceType.ordinal() + 1},
+ * with bit 3 set for black pieces. Castling and en passant are not part of the
+ * rules implemented by {@link ChessGame}, so there are no rights to store; a
+ * future version can append them behind a new version byte.
+ */
+public class ChessGameCodec {
+    public static final byte VERSION = 1;
+    public static final int BOARD_BYTES = 32;
+    public static final int GAME_BYTES = 2 + BOARD_BYTES;
+
+    private static final int BLACK_BIT = 0x8;
+    private static final int BLACK_TO_MOVE = 0x1;
+    private static final ChessPiece[] PIECES = new ChessPiece[16];
+
+    static {
+        for(ChessPiece.PieceType type : ChessPiece.PieceType.values()){
+            PIECES[type.ordinal() + 1] = new ChessPiece(ChessGame.TeamColor.WHITE, type);
+            PIECES[(type.ordinal() + 1) | BLACK_BIT] = new ChessPiece(ChessGame.TeamColor.BLACK, type);
+        }
+    }
+
+    private ChessGameCodec() {}
+
+    /**
+     * @param game the game to encode
+     * @return the game as {@link #GAME_BYTES} bytes
+     */
+    public static byte[] encode(ChessGame game) {
+        byte[] bytes = new byte[GAME_BYTES];
+        bytes[0] = VERSION;
+        bytes[1] = (byte) (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0);
+        writeBoard(game.getBoard(), bytes, 2);
+        return bytes;
+    }
+
+    /**
+     * @param bytes a game written by {@link #encode(ChessGame)}
+     * @return the decoded game
+     * @throws IllegalArgumentException if the bytes are not a game this codec understands
+     */
+    public static ChessGame decode(byte[] bytes) {
+        if(bytes == null || bytes.length != GAME_BYTES){
+            throw new IllegalArgumentException("Encoded game must be " + GAME_BYTES + " bytes");
+        }
+        if(bytes[0] != VERSION){
+            throw new IllegalArgumentException("Unsupported game encoding version " + bytes[0]);
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(readBoard(bytes, 2));
+        game.setTeamTurn((bytes[1] & BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        return game;
+    }
+
+    /**
+     * Writes the {@link #BOARD_BYTES} byte packed form of a board
+     *
+     * @param board  the board to write
+     * @param out    destination array
+     * @param offset where in the destination to start writing
+     */
+    public static void writeBoard(ChessBoard board, byte[] out, int offset) {
+        for(int i = 0; i < 64; i += 2){
+            int low = nibble(board.getPiece(new ChessPosition(i / 8 + 1, i % 8 + 1)));
+            int high = nibble(board.getPiece(new ChessPosition(i / 8 + 1, i % 8 + 2)));
+            out[offset + i / 2] = (byte) (low | (high << 4));
+        }
+    }
+
+    /**
+     * Reads a board written by {@link #writeBoard(ChessBoard, byte[], int)}
+     *
+     * @param in     source array
+     * @param offset where in the source the board starts
+     * @return the decoded board
+     * @throws IllegalArgumentException if a square holds an unknown piece code
+     */
+    public static ChessBoard readBoard(byte[] in, int offset) {
+        if(offset < 0 || offset + BOARD_BYTES > in.length){
+            throw new IllegalArgumentException("Encoded board is truncated");
+        }
+        ChessBoard board = new ChessBoard();
+        for(int i = 0; i < 64; i += 2){
+            int b = in[offset + i / 2];
+            board.addPiece(new ChessPosition(i / 8 + 1, i % 8 + 1), piece(b & 0xF));
+            board.addPiece(new ChessPosition(i / 8 + 1, i % 8 + 2), piece((b >> 4) & 0xF));
+        }
+        return board;
+    }
+
+    private static int nibble(ChessPiece piece) {
+        if(piece == null){
+            return 0;
+        }
+        int code = piece.getPieceType().ordinal() + 1;
+        return piece.getTeamColor() == ChessGame.TeamColor.BLACK ? code | BLACK_BIT : code;
+    }
+
+    private static ChessPiece piece(int nibble) {
+        if(nibble == 0){
+            return null;
+        }
+        ChessPiece piece = PIECES[nibble];
+        if(piece == null){
+            throw new IllegalArgumentException("Unknown piece code " + nibble);
+        }
+        return piece;
+    }
+}
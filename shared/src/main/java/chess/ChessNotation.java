@@ -0,0 +1,326 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts chess moves to and from text, in both UCI ("e2e4", "e7e8q") and
+ * SAN ("Nxf3+") notation.
+ * <p>
+ * UCI only depends on the move itself, so those conversions are static. SAN
+ * depends on the position, so an instance is built for a single position and
+ * works out the SAN of every legal move once, up front. After that, encoding
+ * and decoding a move are map lookups.
+ * <p>
+ * Castling and en passant are not part of the rules implemented by
+ * {@link ChessGame}, so "O-O" style moves are never produced or accepted.
+ */
+public class ChessNotation {
+    private static final String[] SQUARE_NAMES = new String[64];
+
+    static {
+        for(int r = 1; r <= 8; r++){
+            for(int c = 1; c <= 8; c++){
+                SQUARE_NAMES[index(r, c)] = "" + (char) ('a' + c - 1) + (char) ('0' + r);
+            }
+        }
+    }
+
+    private final Map<ChessMove, String> moveToSan = new LinkedHashMap<>();
+    private final Map<String, ChessMove> sanToMove = new HashMap<>();
+
+    /**
+     * Builds the SAN lookup for the current position of a game
+     *
+     * @param game the game whose current position and turn are used
+     */
+    public ChessNotation(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        List<ChessMove> legal = game.allValidMoves();
+        for(ChessMove move : legal){
+            String san = sanWithoutSuffix(board, move, legal);
+            moveToSan.put(move, san + checkSuffix(game, move));
+            sanToMove.put(san, move);
+        }
+    }
+
+    /**
+     * @return the legal moves of the position this notation was built for
+     */
+    public Collection<ChessMove> legalMoves() {
+        return Collections.unmodifiableCollection(moveToSan.keySet());
+    }
+
+    /**
+     * Gets the SAN text for a move, including a "+" or "#" suffix
+     *
+     * @param move a legal move in this position
+     * @return the move in SAN
+     * @throws InvalidMoveException if the move is not legal in this position
+     */
+    public String toSan(ChessMove move) throws InvalidMoveException {
+        String san = moveToSan.get(move);
+        if(san == null){
+            throw new InvalidMoveException("Invalid Move");
+        }
+        return san;
+    }
+
+    /**
+     * Parses SAN text into a move. Check, mate and annotation suffixes are
+     * ignored, and a more specific disambiguation than needed is accepted.
+     *
+     * @param san the move in SAN
+     * @return the matching legal move
+     * @throws InvalidMoveException if the text does not name exactly one legal move
+     */
+    public ChessMove fromSan(String san) throws InvalidMoveException {
+        String key = stripSuffix(san);
+        ChessMove move = sanToMove.get(key);
+        if(move != null){
+            return move;
+        }
+        return matchLooseSan(key);
+    }
+
+    /**
+     * Gets the UCI text for a move, e.g. "e2e4" or "e7e8q"
+     *
+     * @param move the move to encode
+     * @return the move in UCI notation
+     */
+    public static String toUci(ChessMove move) {
+        String uci = squareName(move.getStartPosition()) + squareName(move.getEndPosition());
+        if(move.getPromotionPiece() != null){
+            uci += Character.toLowerCase(pieceLetter(move.getPromotionPiece()));
+        }
+        return uci;
+    }
+
+    /**
+     * Parses UCI text such as "e2e4" or "e7e8q" into a move. The move is not
+     * checked against any position.
+     *
+     * @param uci the move in UCI notation
+     * @return the move
+     * @throws InvalidMoveException if the text is not well formed
+     */
+    public static ChessMove fromUci(String uci) throws InvalidMoveException {
+        if(uci == null || (uci.length() != 4 && uci.length() != 5)){
+            throw new InvalidMoveException("Invalid Move");
+        }
+        ChessPosition start = parseSquare(uci, 0);
+        ChessPosition end = parseSquare(uci, 2);
+        ChessPiece.PieceType promotion = null;
+        if(uci.length() == 5){
+            promotion = pieceType(Character.toUpperCase(uci.charAt(4)));
+            if(promotion == null || promotion == ChessPiece.PieceType.KING
+                    || promotion == ChessPiece.PieceType.PAWN){
+                throw new InvalidMoveException("Invalid Move");
+            }
+        }
+        return new ChessMove(start, end, promotion);
+    }
+
+    /**
+     * @return the algebraic name of a square, e.g. "e4"
+     */
+    public static String squareName(ChessPosition position) {
+        return SQUARE_NAMES[index(position.getRow(), position.getColumn())];
+    }
+
+    /**
+     * Parses a two character square name such as "e4"
+     *
+     * @param text   text holding the square name
+     * @param offset where the square name starts
+     * @return the position
+     * @throws InvalidMoveException if the characters are not a square name
+     */
+    public static ChessPosition parseSquare(String text, int offset) throws InvalidMoveException {
+        if(offset < 0 || offset + 2 > text.length()){
+            throw new InvalidMoveException("Invalid Move");
+        }
+        int c = text.charAt(offset) - 'a' + 1;
+        int r = text.charAt(offset + 1) - '0';
+        if(c < 1 || c > 8 || r < 1 || r > 8){
+            throw new InvalidMoveException("Invalid Move");
+        }
+        return new ChessPosition(r, c);
+    }
+
+    /**
+     * @return the SAN letter for a piece type, e.g. 'N' for a knight, or
+     * 'P' for a pawn
+     */
+    public static char pieceLetter(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case ROOK -> 'R';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case PAWN -> 'P';
+        };
+    }
+
+    /**
+     * @return the piece type for an upper case SAN letter, or null if the
+     * letter is not one
+     */
+    public static ChessPiece.PieceType pieceType(char letter) {
+        return switch (letter) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            case 'P' -> ChessPiece.PieceType.PAWN;
+            default -> null;
+        };
+    }
+
+    private static String sanWithoutSuffix(ChessBoard board, ChessMove move, List<ChessMove> legal) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        ChessPiece.PieceType type = board.getPiece(start).getPieceType();
+        boolean capture = board.getPiece(end) != null;
+        StringBuilder san = new StringBuilder(7);
+
+        if(type == ChessPiece.PieceType.PAWN){
+            if(capture){
+                san.append((char) ('a' + start.getColumn() - 1)).append('x');
+            }
+            san.append(squareName(end));
+            if(move.getPromotionPiece() != null){
+                san.append('=').append(pieceLetter(move.getPromotionPiece()));
+            }
+            return san.toString();
+        }
+
+        san.append(pieceLetter(type));
+        boolean ambiguous = false;
+        boolean sameColumn = false;
+        boolean sameRow = false;
+        for(ChessMove other : legal){
+            ChessPosition otherStart = other.getStartPosition();
+            if(!other.getEndPosition().equals(end) || otherStart.equals(start)
+                    || board.getPiece(otherStart).getPieceType() != type){
+                continue;
+            }
+            ambiguous = true;
+            sameColumn |= otherStart.getColumn() == start.getColumn();
+            sameRow |= otherStart.getRow() == start.getRow();
+        }
+        if(ambiguous){
+            if(!sameColumn){
+                san.append((char) ('a' + start.getColumn() - 1));
+            } else if(!sameRow){
+                san.append((char) ('0' + start.getRow()));
+            } else {
+                san.append(squareName(start));
+            }
+        }
+        if(capture){
+            san.append('x');
+        }
+        san.append(squareName(end));
+        return san.toString();
+    }
+
+    private static String checkSuffix(ChessGame game, ChessMove move) {
+        ChessGame after = game.copy();
+        try {
+            after.makeMove(move);
+        } catch (InvalidMoveException ex) {
+            return "";
+        }
+        ChessGame.TeamColor opponent = after.getTeamTurn();
+        if(!after.isInCheck(opponent)){
+            return "";
+        }
+        return after.isInCheckmate(opponent) ? "#" : "+";
+    }
+
+    private static String stripSuffix(String san) throws InvalidMoveException {
+        if(san == null){
+            throw new InvalidMoveException("Invalid Move");
+        }
+        int end = san.length();
+        while(end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0){
+            end--;
+        }
+        return san.substring(0, end).trim();
+    }
+
+    private ChessMove matchLooseSan(String san) throws InvalidMoveException {
+        String text = san.replace("x", "").replace("=", "");
+        if(text.length() < 2){
+            throw new InvalidMoveException("Invalid Move");
+        }
+
+        ChessPiece.PieceType promotion = null;
+        char last = text.charAt(text.length() - 1);
+        if(Character.isUpperCase(last)){
+            promotion = pieceType(last);
+            text = text.substring(0, text.length() - 1);
+        }
+
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        int from = 0;
+        if(!text.isEmpty() && Character.isUpperCase(text.charAt(0))){
+            type = pieceType(text.charAt(0));
+            from = 1;
+        }
+        if(type == null || text.length() - from < 2){
+            throw new InvalidMoveException("Invalid Move");
+        }
+        ChessPosition end = parseSquare(text, text.length() - 2);
+        String hint = text.substring(from, text.length() - 2);
+
+        ArrayList<ChessMove> matches = new ArrayList<>();
+        for(Map.Entry<ChessMove, String> entry : moveToSan.entrySet()){
+            ChessMove move = entry.getKey();
+            if(move.getEndPosition().equals(end) && move.getPromotionPiece() == promotion
+                    && pieceLetter(type) == movingLetter(entry.getValue())
+                    && matchesHint(move.getStartPosition(), hint)){
+                matches.add(move);
+            }
+        }
+        if(matches.size() != 1){
+            throw new InvalidMoveException("Invalid Move");
+        }
+        return matches.get(0);
+    }
+
+    private static char movingLetter(String san) {
+        char first = san.charAt(0);
+        return Character.isUpperCase(first) ? first : 'P';
+    }
+
+    private static boolean matchesHint(ChessPosition start, String hint) {
+        for(char ch : hint.toCharArray()){
+            if(ch >= 'a' && ch <= 'h'){
+                if(start.getColumn() != ch - 'a' + 1){
+                    return false;
+                }
+            } else if(ch >= '1' && ch <= '8'){
+                if(start.getRow() != ch - '0'){
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int index(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+}
@@ -0,0 +1,239 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Streaming Gson adapters that write the chess types as short strings instead
+ * of letting Gson reflect over their fields:
+ * <ul>
+ * <li>ChessPosition as its square name, e.g. "e4"</li>
+ * <li>ChessMove as UCI, e.g. "e7e8q"; the object plain Gson writes for a
+ * move is read too, since that is what clients without these adapters send</li>
+ * <li>ChessPiece as its FEN letter, upper case for white, e.g. "N" or "n"</li>
+ * <li>ChessBoard as the piece placement field of FEN</li>
+ * <li>ChessGame as piece placement plus the side to move, e.g.
+ * "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b"</li>
+ * </ul>
+ * Castling and en passant are not part of {@link ChessGame}, so the rest of
+ * a FEN record is not written. Every type reads back equal to what was written.
+ */
+public class ChessTypeAdapters {
+
+    private ChessTypeAdapters() {}
+
+    /**
+     * @return a Gson instance with all the chess adapters registered
+     */
+    public static Gson createGson() {
+        return register(new GsonBuilder()).create();
+    }
+
+    /**
+     * Registers all the chess adapters with a builder
+     *
+     * @param builder the builder to add the adapters to
+     * @return the same builder
+     */
+    public static GsonBuilder register(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapter(ChessPosition.class, new PositionAdapter().nullSafe())
+                .registerTypeAdapter(ChessMove.class, new MoveAdapter().nullSafe())
+                .registerTypeAdapter(ChessPiece.class, new PieceAdapter().nullSafe())
+                .registerTypeAdapter(ChessBoard.class, new BoardAdapter().nullSafe())
+                .registerTypeAdapter(ChessGame.class, new GameAdapter().nullSafe());
+    }
+
+    /**
+     * @return the FEN piece placement field for a board
+     */
+    public static String toFen(ChessBoard board) {
+        StringBuilder fen = new StringBuilder(72);
+        for(int r = 8; r >= 1; r--){
+            int empty = 0;
+            for(int c = 1; c <= 8; c++){
+                ChessPiece piece = board.getPiece(new ChessPosition(r, c));
+                if(piece == null){
+                    empty++;
+                    continue;
+                }
+                if(empty > 0){
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(fenLetter(piece));
+            }
+            if(empty > 0){
+                fen.append(empty);
+            }
+            if(r > 1){
+                fen.append('/');
+            }
+        }
+        return fen.toString();
+    }
+
+    /**
+     * Parses a FEN piece placement field
+     *
+     * @param fen the piece placement field
+     * @return the board it describes
+     * @throws JsonParseException if the text is not a valid placement
+     */
+    public static ChessBoard parseFen(String fen) {
+        ChessBoard board = new ChessBoard();
+        int r = 8;
+        int c = 1;
+        for(int i = 0; i < fen.length(); i++){
+            char ch = fen.charAt(i);
+            if(ch == '/'){
+                if(c != 9){
+                    throw new JsonParseException("Bad FEN rank in " + fen);
+                }
+                r--;
+                c = 1;
+            } else if(ch >= '1' && ch <= '8'){
+                c += ch - '0';
+            } else {
+                if(r < 1 || c > 8){
+                    throw new JsonParseException("Bad FEN square in " + fen);
+                }
+                board.addPiece(new ChessPosition(r, c), parsePiece(ch));
+                c++;
+            }
+            if(c > 9){
+                throw new JsonParseException("Bad FEN rank in " + fen);
+            }
+        }
+        if(r != 1 || c != 9){
+            throw new JsonParseException("Bad FEN placement " + fen);
+        }
+        return board;
+    }
+
+    private static char fenLetter(ChessPiece piece) {
+        char letter = ChessNotation.pieceLetter(piece.getPieceType());
+        return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? letter : Character.toLowerCase(letter);
+    }
+
+    private static ChessPiece parsePiece(char letter) {
+        ChessPiece.PieceType type = ChessNotation.pieceType(Character.toUpperCase(letter));
+        if(type == null){
+            throw new JsonParseException("Unknown piece " + letter);
+        }
+        ChessGame.TeamColor color = Character.isUpperCase(letter)
+                ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        return new ChessPiece(color, type);
+    }
+
+    private static class PositionAdapter extends TypeAdapter<ChessPosition> {
+        @Override
+        public void write(JsonWriter out, ChessPosition position) throws IOException {
+            out.value(ChessNotation.squareName(position));
+        }
+
+        @Override
+        public ChessPosition read(JsonReader in) throws IOException {
+            String text = in.nextString();
+            try {
+                if(text.length() != 2){
+                    throw new InvalidMoveException("Invalid square");
+                }
+                return ChessNotation.parseSquare(text, 0);
+            } catch (InvalidMoveException ex) {
+                throw new JsonParseException("Bad square " + text, ex);
+            }
+        }
+    }
+
+    private static boolean onBoard(ChessPosition position) {
+        return position != null && position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
+    private static class MoveAdapter extends TypeAdapter<ChessMove> {
+        @Override
+        public void write(JsonWriter out, ChessMove move) throws IOException {
+            out.value(ChessNotation.toUci(move));
+        }
+
+        private static final Gson PLAIN = new Gson();
+
+        @Override
+        public ChessMove read(JsonReader in) throws IOException {
+            if(in.peek() == JsonToken.BEGIN_OBJECT){
+                ChessMove move = PLAIN.fromJson(in, ChessMove.class);
+                if(!onBoard(move.getStartPosition()) || !onBoard(move.getEndPosition())){
+                    throw new JsonParseException("Bad move " + PLAIN.toJson(move));
+                }
+                return move;
+            }
+            String text = in.nextString();
+            try {
+                return ChessNotation.fromUci(text);
+            } catch (InvalidMoveException ex) {
+                throw new JsonParseException("Bad move " + text, ex);
+            }
+        }
+    }
+
+    private static class PieceAdapter extends TypeAdapter<ChessPiece> {
+        @Override
+        public void write(JsonWriter out, ChessPiece piece) throws IOException {
+            out.value(String.valueOf(fenLetter(piece)));
+        }
+
+        @Override
+        public ChessPiece read(JsonReader in) throws IOException {
+            String text = in.nextString();
+            if(text.length() != 1){
+                throw new JsonParseException("Bad piece " + text);
+            }
+            return parsePiece(text.charAt(0));
+        }
+    }
+
+    private static class BoardAdapter extends TypeAdapter<ChessBoard> {
+        @Override
+        public void write(JsonWriter out, ChessBoard board) throws IOException {
+            out.value(toFen(board));
+        }
+
+        @Override
+        public ChessBoard read(JsonReader in) throws IOException {
+            return parseFen(in.nextString());
+        }
+    }
+
+    private static class GameAdapter extends TypeAdapter<ChessGame> {
+        @Override
+        public void write(JsonWriter out, ChessGame game) throws IOException {
+            char turn = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 'w' : 'b';
+            out.value(toFen(game.getBoard()) + ' ' + turn);
+        }
+
+        @Override
+        public ChessGame read(JsonReader in) throws IOException {
+            String text = in.nextString();
+            int space = text.indexOf(' ');
+            if(space < 0 || space != text.length() - 2){
+                throw new JsonParseException("Bad game " + text);
+            }
+            ChessGame game = new ChessGame();
+            game.setBoard(parseFen(text.substring(0, space)));
+            switch (text.charAt(space + 1)) {
+                case 'w' -> game.setTeamTurn(ChessGame.TeamColor.WHITE);
+                case 'b' -> game.setTeamTurn(ChessGame.TeamColor.BLACK);
+                default -> throw new JsonParseException("Bad side to move in " + text);
+            }
+            return game;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package chess;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The history of a chess game, stored as its starting position plus the
+ * moves played.
+ * <p>
+ * Each move is stored as its index in the legal move list of the position it
+ * was played from ({@link ChessGame#allValidMoves()} order), which fits in one
+ * byte; an index of 255 or more takes two. Every {@code snapshotInterval}
+ * plies a {@link ChessGameCodec} snapshot is kept in memory, so the position
+ * at any ply is rebuilt by replaying from the nearest snapshot instead of from
+ * the start.
+ * <p>
+ * Encoded layout:
+ * <pre>
+ * byte 0       format version
+ * byte 1       snapshot interval
+ * bytes 2-35   starting position, as written by ChessGameCodec
+ * bytes 36-    the moves, as returned by {@link #append(ChessMove)}
+ * </pre>
+ */
+public class GameRecord {
+    public static final byte VERSION = 1;
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 16;
+
+    private static final int HEADER_BYTES = 2 + ChessGameCodec.GAME_BYTES;
+    private static final int ESCAPE = 0xFF;
+
+    private final int snapshotInterval;
+    private final ArrayList<byte[]> snapshots = new ArrayList<>();
+    private final ByteArrayOutputStream moves = new ByteArrayOutputStream();
+    private final ChessGame current;
+    private int plies;
+
+    public GameRecord(ChessGame start) {
+        this(start, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * @param start            the position the game starts from
+     * @param snapshotInterval plies between snapshots, from 1 to 255
+     */
+    public GameRecord(ChessGame start, int snapshotInterval) {
+        if(snapshotInterval < 1 || snapshotInterval > 255){
+            throw new IllegalArgumentException("Snapshot interval must be between 1 and 255");
+        }
+        this.snapshotInterval = snapshotInterval;
+        current = start.copy();
+        snapshots.add(ChessGameCodec.encode(current));
+    }
+
+    /**
+     * Plays a move and records it
+     *
+     * @param move the move to play
+     * @return the bytes the move was recorded as, so callers can persist just
+     * this move by appending them to what {@link #encode()} returned earlier
+     * @throws InvalidMoveException if the move is not legal in the current position
+     */
+    public byte[] append(ChessMove move) throws InvalidMoveException {
+        int index = current.allValidMoves().indexOf(move);
+        if(index < 0){
+            throw new InvalidMoveException("Invalid Move");
+        }
+        current.makeMove(move);
+        plies++;
+        if(plies % snapshotInterval == 0){
+            snapshots.add(ChessGameCodec.encode(current));
+        }
+
+        byte[] encoded = index < ESCAPE
+                ? new byte[] {(byte) index}
+                : new byte[] {(byte) ESCAPE, (byte) (index - ESCAPE)};
+        moves.write(encoded, 0, encoded.length);
+        return encoded;
+    }
+
+    /**
+     * @return the number of plies played so far
+     */
+    public int getPlyCount() {
+        return plies;
+    }
+
+    /**
+     * @return a copy of the position after the last recorded move
+     */
+    public ChessGame getCurrentGame() {
+        return current.copy();
+    }
+
+    /**
+     * Rebuilds the position after a given number of plies
+     *
+     * @param ply 0 for the starting position, up to {@link #getPlyCount()}
+     * @return the position at that ply
+     */
+    public ChessGame positionAt(int ply) {
+        if(ply < 0 || ply > plies){
+            throw new IndexOutOfBoundsException("No ply " + ply + " in a game of " + plies);
+        }
+        int snapshot = ply / snapshotInterval;
+        ChessGame game = ChessGameCodec.decode(snapshots.get(snapshot));
+        byte[] data = moves.toByteArray();
+        int offset = skipMoves(data, 0, snapshot * snapshotInterval);
+        try {
+            replay(game, data, offset, ply - snapshot * snapshotInterval);
+        } catch (InvalidMoveException ex) {
+            throw new IllegalStateException("Recorded moves no longer replay", ex);
+        }
+        return game;
+    }
+
+    /**
+     * @return the record in its encoded form
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_BYTES + moves.size());
+        out.write(VERSION);
+        out.write(snapshotInterval);
+        out.writeBytes(snapshots.get(0));
+        out.writeBytes(moves.toByteArray());
+        return out.toByteArray();
+    }
+
+    /**
+     * Loads a record written by {@link #encode()}, replaying its moves once to
+     * rebuild the current position and snapshots
+     *
+     * @param bytes the encoded record
+     * @return the record
+     * @throws IllegalArgumentException if the bytes are not a valid record
+     */
+    public static GameRecord decode(byte[] bytes) {
+        if(bytes == null || bytes.length < HEADER_BYTES){
+            throw new IllegalArgumentException("Encoded game record is truncated");
+        }
+        if(bytes[0] != VERSION){
+            throw new IllegalArgumentException("Unsupported game record version " + bytes[0]);
+        }
+        byte[] start = new byte[ChessGameCodec.GAME_BYTES];
+        System.arraycopy(bytes, 2, start, 0, start.length);
+        GameRecord record = new GameRecord(ChessGameCodec.decode(start), bytes[1] & 0xFF);
+
+        int offset = HEADER_BYTES;
+        try {
+            while(offset < bytes.length){
+                int[] next = readIndex(bytes, offset);
+                List<ChessMove> legal = record.current.allValidMoves();
+                if(next[0] >= legal.size()){
+                    throw new IllegalArgumentException("Recorded move " + next[0] + " is not legal");
+                }
+                record.append(legal.get(next[0]));
+                offset = next[1];
+            }
+        } catch (InvalidMoveException ex) {
+            throw new IllegalArgumentException("Recorded move is not legal", ex);
+        }
+        return record;
+    }
+
+    private static void replay(ChessGame game, byte[] data, int offset, int count) throws InvalidMoveException {
+        for(int i = 0; i < count; i++){
+            int[] next = readIndex(data, offset);
+            game.makeMove(game.allValidMoves().get(next[0]));
+            offset = next[1];
+        }
+    }
+
+    private static int skipMoves(byte[] data, int offset, int count) {
+        for(int i = 0; i < count; i++){
+            offset += (data[offset] & 0xFF) == ESCAPE ? 2 : 1;
+        }
+        return offset;
+    }
+
+    /**
+     * @return {move index, offset of the following move}
+     */
+    private static int[] readIndex(byte[] data, int offset) {
+        int first = data[offset] & 0xFF;
+        if(first != ESCAPE){
+            return new int[] {first, offset + 1};
+        }
+        if(offset + 1 >= data.length){
+            throw new IllegalArgumentException("Encoded game record is truncated");
+        }
+        return new int[] {ESCAPE + (data[offset + 1] & 0xFF), offset + 2};
+    }
+}
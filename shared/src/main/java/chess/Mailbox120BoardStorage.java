@@ -0,0 +1,40 @@
+package chess;
+
+/**
+ * Keeps the board as a 10x12 mailbox: a 120 entry array indexed by
+ * {@code (row + 1) * 10 + col}, with two border ranks above and below the
+ * board and one border file either side. A row or column that strays off the
+ * board, even by a knight's jump, lands on a border entry, so
+ * {@link #ON_BOARD} answers the test with one lookup.
+ */
+class Mailbox120BoardStorage implements BoardStorage {
+    private static final boolean[] ON_BOARD = new boolean[120];
+
+    static {
+        for(int row = 1; row <= 8; row++){
+            for(int col = 1; col <= 8; col++){
+                ON_BOARD[(row + 1) * 10 + col] = true;
+            }
+        }
+    }
+
+    private final ChessPiece[] squares = new ChessPiece[120];
+
+    @Override
+    public ChessPiece get(int row, int col) {
+        return squares[index(row, col)];
+    }
+
+    @Override
+    public void set(int row, int col, ChessPiece piece) {
+        squares[index(row, col)] = piece;
+    }
+
+    private static int index(int row, int col) {
+        int index = (row + 1) * 10 + col;
+        if(col < 0 || col > 9 || index < 0 || index >= 120 || !ON_BOARD[index]){
+            throw new ArrayIndexOutOfBoundsException("Square off the board: " + row + "," + col);
+        }
+        return index;
+    }
+}
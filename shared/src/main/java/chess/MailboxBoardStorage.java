@@ -0,0 +1,28 @@
+package chess;
+
+/**
+ * Keeps the board as a 0x88 mailbox: a 128 entry array indexed by
+ * {@code rank * 16 + file}, where the right half of every rank is unused.
+ * An index is on the board exactly when {@code (index & 0x88) == 0}.
+ */
+class MailboxBoardStorage implements BoardStorage {
+    private final ChessPiece[] squares = new ChessPiece[128];
+
+    @Override
+    public ChessPiece get(int row, int col) {
+        return squares[index(row, col)];
+    }
+
+    @Override
+    public void set(int row, int col, ChessPiece piece) {
+        squares[index(row, col)] = piece;
+    }
+
+    private static int index(int row, int col) {
+        int index = ((row - 1) << 4) | (col - 1);
+        if((index & 0x88) != 0 || row < 1 || col < 1){
+            throw new ArrayIndexOutOfBoundsException("Square off the board: " + row + "," + col);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,10 @@
+package model;
+
+/**
+ * An auth token and the user it was issued to
+ *
+ * @param authToken the token clients send in the authorization header
+ * @param username  the user the token belongs to
+ */
+public record AuthData(String authToken, String username) {
+}
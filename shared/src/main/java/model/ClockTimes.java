@@ -0,0 +1,10 @@
+package model;
+
+/**
+ * Both players' remaining time at one moment of a timed game
+ *
+ * @param whiteMillis time left on white's clock
+ * @param blackMillis time left on black's clock
+ */
+public record ClockTimes(long whiteMillis, long blackMillis) {
+}
@@ -0,0 +1,15 @@
+package model;
+
+import chess.ChessGame;
+
+/**
+ * A game as the server tracks it: who is playing each color and the game itself
+ *
+ * @param gameID        unique id of the game
+ * @param whiteUsername player with the white pieces, or null if the seat is open
+ * @param blackUsername player with the black pieces, or null if the seat is open
+ * @param gameName      name the game was created with
+ * @param game          the game state
+ */
+public record GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+}
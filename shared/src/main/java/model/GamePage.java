@@ -0,0 +1,12 @@
+package model;
+
+import java.util.List;
+
+/**
+ * One page of a game listing
+ *
+ * @param games      the games on this page
+ * @param nextCursor pass this back to get the next page, or null if this is the last page
+ */
+public record GamePage(List<GameSummary> games, String nextCursor) {
+}
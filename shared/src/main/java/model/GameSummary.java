@@ -0,0 +1,15 @@
+package model;
+
+/**
+ * A game as shown in the lobby: everything in {@link GameData} except the
+ * game state itself
+ *
+ * @param gameID        unique id of the game
+ * @param whiteUsername player with the white pieces, or null if the seat is open
+ * @param blackUsername player with the black pieces, or null if the seat is open
+ * @param gameName      name the game was created with
+ * @param finished      true once the game has ended
+ */
+public record GameSummary(int gameID, String whiteUsername, String blackUsername, String gameName,
+                          boolean finished) {
+}
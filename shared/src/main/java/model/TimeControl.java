@@ -0,0 +1,15 @@
+package model;
+
+/**
+ * How much time each player gets in a timed game
+ *
+ * @param baseMillis      time each player starts with
+ * @param incrementMillis time added to a player's clock after each of their moves
+ */
+public record TimeControl(long baseMillis, long incrementMillis) {
+    public TimeControl {
+        if(baseMillis < 1 || incrementMillis < 0){
+            throw new IllegalArgumentException("A time control needs a base above zero and an increment of zero or more");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package model;
+
+/**
+ * A registered user
+ *
+ * @param username unique name the user logs in with
+ * @param password the user's password; stored as a bcrypt hash, never as typed
+ * @param email    the user's email address
+ */
+public record UserData(String username, String password, String email) {
+}
@@ -0,0 +1,249 @@
+package websocket;
+
+import chess.ChessGameCodec;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import model.ClockTimes;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.ResumeCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.BatchMessage;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMessage;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes WebSocket commands and messages in a compact binary form,
+ * for clients that connect with the {@link WireFormat#BINARY_SUBPROTOCOL}.
+ * <p>
+ * Every frame starts with the command or message type's ordinal. Numbers are
+ * big endian, strings are a two byte length and UTF-8, and a move is three
+ * bytes: start square, end square (0 for a1 up to 63 for h8) and promotion
+ * piece ({@code PieceType.ordinal() + 1}, or 0 for none).
+ * <pre>
+ * command       type, gameID (int, -1 for none), has token (byte), token,
+ *               then for MAKE_MOVE the move and for RESUME the last sequence (int)
+ * LOAD_GAME     type, sequence (int), the game as {@link ChessGameCodec} bytes, clock
+ * MOVE          type, sequence (int), status ordinal (byte), move, clock
+ * ERROR         type, error message
+ * NOTIFICATION  type, message, sequence (int) if it has one
+ * BATCH         type, count (short), then each message as length (short) and bytes
+ * </pre>
+ * The clock is white's and black's remaining milliseconds (long each) in a
+ * timed game, and left out entirely in an untimed one.
+ */
+public class MessageBinary {
+
+    private MessageBinary() {}
+
+    /**
+     * @return the command in binary form
+     */
+    public static byte[] encodeCommand(UserGameCommand command) {
+        return write(out -> {
+            out.writeByte(command.getCommandType().ordinal());
+            out.writeInt(command.getGameID() == null ? -1 : command.getGameID());
+            out.writeBoolean(command.getAuthToken() != null);
+            if(command.getAuthToken() != null){
+                out.writeUTF(command.getAuthToken());
+            }
+            if(command instanceof MakeMoveCommand move){
+                writeMove(out, move.getMove());
+            } else if(command instanceof ResumeCommand resume){
+                out.writeInt(resume.getLastSequence());
+            }
+        });
+    }
+
+    /**
+     * @return the command, as a {@link MakeMoveCommand} for MAKE_MOVE and a
+     * {@link ResumeCommand} for RESUME
+     * @throws IllegalArgumentException if the bytes aren't a command
+     */
+    public static UserGameCommand decodeCommand(byte[] bytes) {
+        return read(bytes, in -> {
+            var type = enumAt(UserGameCommand.CommandType.values(), in.readUnsignedByte());
+            int gameID = in.readInt();
+            String token = in.readBoolean() ? in.readUTF() : null;
+            Integer id = gameID < 0 ? null : gameID;
+            return switch (type) {
+                case MAKE_MOVE -> new MakeMoveCommand(token, id, readMove(in));
+                case RESUME -> new ResumeCommand(token, id, in.readInt());
+                default -> new UserGameCommand(type, token, id);
+            };
+        });
+    }
+
+    /**
+     * @return the message in binary form
+     */
+    public static byte[] encodeMessage(ServerMessage message) {
+        return write(out -> writeMessage(out, message));
+    }
+
+    /**
+     * @return the message, as the subclass for its type
+     * @throws IllegalArgumentException if the bytes aren't a server message
+     */
+    public static ServerMessage decodeMessage(byte[] bytes) {
+        return read(bytes, MessageBinary::readMessage);
+    }
+
+    private static void writeMessage(DataOutputStream out, ServerMessage message) throws IOException {
+        out.writeByte(message.getServerMessageType().ordinal());
+        switch (message) {
+            case LoadGameMessage load -> {
+                out.writeInt(load.getSequence());
+                out.write(ChessGameCodec.encode(load.getGame()));
+                writeClock(out, load.getClock());
+            }
+            case MoveMessage move -> {
+                out.writeInt(move.getSequence());
+                out.writeByte(move.getStatus().ordinal());
+                writeMove(out, move.getMove());
+                writeClock(out, move.getClock());
+            }
+            case ErrorMessage error -> out.writeUTF(error.getErrorMessage());
+            case NotificationMessage notification -> {
+                out.writeUTF(notification.getMessage());
+                if(notification.getSequence() != null){
+                    out.writeInt(notification.getSequence());
+                }
+            }
+            case BatchMessage batch -> {
+                out.writeShort(batch.getMessages().size());
+                for(ServerMessage inner : batch.getMessages()){
+                    byte[] bytes = encodeMessage(inner);
+                    out.writeShort(bytes.length);
+                    out.write(bytes);
+                }
+            }
+            default -> throw new IllegalArgumentException("Can't encode " + message.getClass().getSimpleName());
+        }
+    }
+
+    private static ServerMessage readMessage(DataInputStream in) throws IOException {
+        var type = enumAt(ServerMessage.ServerMessageType.values(), in.readUnsignedByte());
+        return switch (type) {
+            case LOAD_GAME -> {
+                int sequence = in.readInt();
+                byte[] game = new byte[ChessGameCodec.GAME_BYTES];
+                in.readFully(game);
+                yield new LoadGameMessage(ChessGameCodec.decode(game), sequence, readClock(in));
+            }
+            case MOVE -> {
+                int sequence = in.readInt();
+                var status = enumAt(MoveMessage.Status.values(), in.readUnsignedByte());
+                ChessMove move = readMove(in);
+                yield new MoveMessage(move, status, sequence, readClock(in));
+            }
+            case ERROR -> new ErrorMessage(in.readUTF());
+            case NOTIFICATION -> {
+                String message = in.readUTF();
+                yield new NotificationMessage(message, in.available() == 0 ? null : in.readInt());
+            }
+            case BATCH -> {
+                int count = in.readUnsignedShort();
+                List<ServerMessage> messages = new ArrayList<>(count);
+                for(int i = 0; i < count; i++){
+                    byte[] bytes = new byte[in.readUnsignedShort()];
+                    in.readFully(bytes);
+                    messages.add(decodeMessage(bytes));
+                }
+                yield new BatchMessage(messages);
+            }
+        };
+    }
+
+    private static void writeMove(DataOutputStream out, ChessMove move) throws IOException {
+        out.writeByte(square(move.getStartPosition()));
+        out.writeByte(square(move.getEndPosition()));
+        out.writeByte(move.getPromotionPiece() == null ? 0 : move.getPromotionPiece().ordinal() + 1);
+    }
+
+    private static ChessMove readMove(DataInputStream in) throws IOException {
+        ChessPosition start = position(in.readUnsignedByte());
+        ChessPosition end = position(in.readUnsignedByte());
+        int promotion = in.readUnsignedByte();
+        return new ChessMove(start, end,
+                promotion == 0 ? null : enumAt(ChessPiece.PieceType.values(), promotion - 1));
+    }
+
+    private static void writeClock(DataOutputStream out, ClockTimes clock) throws IOException {
+        if(clock != null){
+            out.writeLong(clock.whiteMillis());
+            out.writeLong(clock.blackMillis());
+        }
+    }
+
+    /**
+     * @return the clock if the message has one; it is always last, so any
+     * bytes left mean there is one
+     */
+    private static ClockTimes readClock(DataInputStream in) throws IOException {
+        if(in.available() == 0){
+            return null;
+        }
+        return new ClockTimes(in.readLong(), in.readLong());
+    }
+
+    private static int square(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + position.getColumn() - 1;
+    }
+
+    private static ChessPosition position(int square) {
+        if(square > 63){
+            throw new IllegalArgumentException("No square " + square);
+        }
+        return new ChessPosition(square / 8 + 1, square % 8 + 1);
+    }
+
+    private static <E> E enumAt(E[] values, int ordinal) {
+        if(ordinal >= values.length){
+            throw new IllegalArgumentException("Unknown type " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private static byte[] write(Writer writer) {
+        var bytes = new ByteArrayOutputStream(64);
+        try (var out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> T read(byte[] bytes, Reader<T> reader) {
+        try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            T value = reader.read(in);
+            if(in.available() > 0){
+                throw new IllegalArgumentException("Trailing bytes after message");
+            }
+            return value;
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Truncated message", ex);
+        }
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+}
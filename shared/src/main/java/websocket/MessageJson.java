@@ -0,0 +1,101 @@
+package websocket;
+
+import chess.ChessTypeAdapters;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.ResumeCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.BatchMessage;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMessage;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes WebSocket commands and messages as JSON, picking the
+ * subclass to read from the type field. Chess types use
+ * {@link ChessTypeAdapters}, so a move is written as UCI and a game as FEN.
+ */
+public class MessageJson {
+    private static final Gson GSON = ChessTypeAdapters.createGson();
+
+    private MessageJson() {}
+
+    /**
+     * @return a command or message as JSON
+     */
+    public static String toJson(Object message) {
+        return GSON.toJson(message);
+    }
+
+    /**
+     * @return the command, as a {@link MakeMoveCommand} for MAKE_MOVE and a
+     * {@link ResumeCommand} for RESUME
+     * @throws JsonParseException if the text isn't a command
+     */
+    public static UserGameCommand parseCommand(String json) {
+        JsonObject object = parseObject(json);
+        UserGameCommand.CommandType type = GSON.fromJson(object.get("commandType"), UserGameCommand.CommandType.class);
+        if(type == null){
+            throw new JsonParseException("Missing or unknown commandType");
+        }
+        return GSON.fromJson(object, switch (type) {
+            case MAKE_MOVE -> MakeMoveCommand.class;
+            case RESUME -> ResumeCommand.class;
+            default -> UserGameCommand.class;
+        });
+    }
+
+    /**
+     * @return the message, as the subclass for its type
+     * @throws JsonParseException if the text isn't a server message
+     */
+    public static ServerMessage parseMessage(String json) {
+        return parseMessage(parseObject(json));
+    }
+
+    private static ServerMessage parseMessage(JsonObject object) {
+        ServerMessage.ServerMessageType type =
+                GSON.fromJson(object.get("serverMessageType"), ServerMessage.ServerMessageType.class);
+        if(type == null){
+            throw new JsonParseException("Missing or unknown serverMessageType");
+        }
+        if(type == ServerMessage.ServerMessageType.BATCH){
+            JsonElement messages = object.get("messages");
+            if(messages == null || !messages.isJsonArray()){
+                throw new JsonParseException("BATCH without a messages array");
+            }
+            List<ServerMessage> batch = new ArrayList<>();
+            for(JsonElement message : messages.getAsJsonArray()){
+                if(!message.isJsonObject()){
+                    throw new JsonParseException("Expected a JSON object");
+                }
+                batch.add(parseMessage(message.getAsJsonObject()));
+            }
+            return new BatchMessage(batch);
+        }
+        return GSON.fromJson(object, switch (type) {
+            case LOAD_GAME -> LoadGameMessage.class;
+            case ERROR -> ErrorMessage.class;
+            case NOTIFICATION -> NotificationMessage.class;
+            case MOVE -> MoveMessage.class;
+            case BATCH -> BatchMessage.class;
+        });
+    }
+
+    private static JsonObject parseObject(String json) {
+        JsonElement element = JsonParser.parseString(json);
+        if(!element.isJsonObject()){
+            throw new JsonParseException("Expected a JSON object");
+        }
+        return element.getAsJsonObject();
+    }
+}
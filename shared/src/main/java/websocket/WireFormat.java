@@ -0,0 +1,23 @@
+package websocket;
+
+/**
+ * How commands and messages are written on a WebSocket. JSON is the default;
+ * a client gets the binary form by offering {@value #BINARY_SUBPROTOCOL} as a
+ * subprotocol when it connects.
+ */
+public enum WireFormat {
+    /** text frames read and written by {@link MessageJson} */
+    JSON,
+    /** binary frames read and written by {@link MessageBinary} */
+    BINARY;
+
+    public static final String BINARY_SUBPROTOCOL = "chess-binary-v1";
+
+    /**
+     * @param subprotocol the subprotocol the server accepted, or null
+     * @return the format that subprotocol means
+     */
+    public static WireFormat forSubprotocol(String subprotocol) {
+        return BINARY_SUBPROTOCOL.equals(subprotocol) ? BINARY : JSON;
+    }
+}
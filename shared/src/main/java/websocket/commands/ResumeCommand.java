@@ -0,0 +1,32 @@
+package websocket.commands;
+
+import java.util.Objects;
+
+/**
+ * A RESUME command, sent instead of CONNECT when a client reconnects to a
+ * game it was already following. It carries the highest sequence number the
+ * client has seen on a MOVE, LOAD_GAME or notification, so the server only
+ * has to send the events since.
+ */
+public class ResumeCommand extends UserGameCommand {
+    private final int lastSequence;
+
+    public ResumeCommand(String authToken, Integer gameID, int lastSequence) {
+        super(CommandType.RESUME, authToken, gameID);
+        this.lastSequence = lastSequence;
+    }
+
+    public int getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && o instanceof ResumeCommand that && lastSequence == that.lastSequence;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), lastSequence);
+    }
+}
@@ -0,0 +1,31 @@
+package websocket.messages;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Several messages that happened close together, sent in one frame. Clients
+ * handle each one in order as if it had arrived on its own.
+ */
+public class BatchMessage extends ServerMessage {
+    private final List<ServerMessage> messages;
+
+    public BatchMessage(List<ServerMessage> messages) {
+        super(ServerMessageType.BATCH);
+        this.messages = List.copyOf(messages);
+    }
+
+    public List<ServerMessage> getMessages() {
+        return messages;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && o instanceof BatchMessage that && messages.equals(that.messages);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), messages);
+    }
+}
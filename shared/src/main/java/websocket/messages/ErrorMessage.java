@@ -0,0 +1,32 @@
+package websocket.messages;
+
+import java.util.Objects;
+
+/**
+ * Tells the client its command failed
+ */
+public class ErrorMessage extends ServerMessage {
+    private final String errorMessage;
+
+    /**
+     * @param errorMessage what went wrong, starting with "Error"
+     */
+    public ErrorMessage(String errorMessage) {
+        super(ServerMessageType.ERROR);
+        this.errorMessage = errorMessage;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && o instanceof ErrorMessage that && Objects.equals(errorMessage, that.errorMessage);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), errorMessage);
+    }
+}
@@ -0,0 +1,47 @@
+package websocket.messages;
+
+import chess.ChessGame;
+import model.ClockTimes;
+
+/**
+ * The whole game, sent when a client connects or asks to resync
+ */
+public class LoadGameMessage extends ServerMessage {
+    private final ChessGame game;
+    private final int sequence;
+    private final ClockTimes clock;
+
+    /**
+     * @param game     the current game
+     * @param sequence how many moves have been made, so the next {@link MoveMessage}
+     *                 will have sequence + 1
+     */
+    public LoadGameMessage(ChessGame game, int sequence) {
+        this(game, sequence, null);
+    }
+
+    /**
+     * @param clock both players' remaining time now, or null for an untimed game
+     */
+    public LoadGameMessage(ChessGame game, int sequence, ClockTimes clock) {
+        super(ServerMessageType.LOAD_GAME);
+        this.game = game;
+        this.sequence = sequence;
+        this.clock = clock;
+    }
+
+    public ChessGame getGame() {
+        return game;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return both players' remaining time when the message was made, or null for an untimed game
+     */
+    public ClockTimes getClock() {
+        return clock;
+    }
+}
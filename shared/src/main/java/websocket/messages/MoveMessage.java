@@ -0,0 +1,80 @@
+package websocket.messages;
+
+import chess.ChessMove;
+import model.ClockTimes;
+
+import java.util.Objects;
+
+/**
+ * A move that was just made, sent to everyone in the game instead of the whole
+ * game. Clients apply the move to their copy of the game.
+ * <p>
+ * Moves in a game are numbered from 1. A client that sees a sequence number
+ * other than one more than the last it applied has missed a message, and
+ * should send RESYNC to get a fresh LOAD_GAME. Moves numbered at or below
+ * the sequence of the last LOAD_GAME are already in it and can be ignored.
+ * <p>
+ * In a timed game the message also carries both clocks as they stood right
+ * after the move; the clock of the player now to move runs from there.
+ */
+public class MoveMessage extends ServerMessage {
+    private final ChessMove move;
+    private final Status status;
+    private final int sequence;
+    private final ClockTimes clock;
+
+    /**
+     * The state of the game after a move
+     */
+    public enum Status {
+        IN_PROGRESS,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
+    public MoveMessage(ChessMove move, Status status, int sequence) {
+        this(move, status, sequence, null);
+    }
+
+    /**
+     * @param clock both players' remaining time after the move, or null for an untimed game
+     */
+    public MoveMessage(ChessMove move, Status status, int sequence, ClockTimes clock) {
+        super(ServerMessageType.MOVE);
+        this.move = move;
+        this.status = status;
+        this.sequence = sequence;
+        this.clock = clock;
+    }
+
+    public ChessMove getMove() {
+        return move;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return both players' remaining time after the move, or null for an untimed game
+     */
+    public ClockTimes getClock() {
+        return clock;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && o instanceof MoveMessage that && sequence == that.sequence
+                && status == that.status && Objects.equals(move, that.move) && Objects.equals(clock, that.clock);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), move, status, sequence, clock);
+    }
+}
@@ -0,0 +1,52 @@
+package websocket.messages;
+
+import java.util.Objects;
+
+/**
+ * Something another user did, shown to the user as text.
+ * <p>
+ * A notification that changes the game, such as a resignation, carries the
+ * game's sequence number like a MOVE does, so a client resuming after it
+ * can be sent it again.
+ */
+public class NotificationMessage extends ServerMessage {
+    private final String message;
+    private final Integer sequence;
+
+    public NotificationMessage(String message) {
+        this(message, null);
+    }
+
+    /**
+     * @param sequence the game's sequence number after the event, or null
+     *                 if the event didn't change the game
+     */
+    public NotificationMessage(String message, Integer sequence) {
+        super(ServerMessageType.NOTIFICATION);
+        this.message = message;
+        this.sequence = sequence;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return the game's sequence number after the event, or null if the
+     * event didn't change the game
+     */
+    public Integer getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && o instanceof NotificationMessage that && Objects.equals(message, that.message)
+                && Objects.equals(sequence, that.sequence);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), message, sequence);
+    }
+}
@@ -0,0 +1,107 @@
+package chess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import passoff.chess.TestUtilities;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Times validMoves and isInCheckmate with each {@link BoardStorage} kind.
+ * It is skipped in normal builds; run it by hand with
+ * <pre>
+ * mvn -pl shared test -Dtest=BoardStorageBenchmarkTests -Dchess.benchmark=true
+ * </pre>
+ * Every kind is timed in the same JVM, after a warm up round, so compare the
+ * numbers from one run with each other rather than across runs.
+ */
+@EnabledIfSystemProperty(named = "chess.benchmark", matches = "true")
+public class BoardStorageBenchmarkTests {
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int TIMED_ROUNDS = 10_000;
+
+    private static final Map<String, String> POSITIONS = Map.of(
+            "opening", """
+                    |r|n|b|q|k|b|n|r|
+                    |p|p|p|p|p|p|p|p|
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    |P|P|P|P|P|P|P|P|
+                    |R|N|B|Q|K|B|N|R|
+                    """,
+            "middlegame", """
+                    |r| |b|q| |r|k| |
+                    |p|p| | |b|p|p|p|
+                    | | |n|p| |n| | |
+                    | | |p| |p| | | |
+                    | | |B| |P| | | |
+                    | | |N|P| |N| | |
+                    |P|P|P| | |P|P|P|
+                    |R| |B|Q| |R|K| |
+                    """,
+            "checkmate", """
+                    |r| |b|q|k|b|n|r|
+                    |p|p|p|p| |Q|p|p|
+                    | | |n| | | | | |
+                    | | | | |p| | | |
+                    | | |B| |P| | | |
+                    | | | | | | | | |
+                    |P|P|P|P| |P|P|P|
+                    |R|N|B| |K| |N|R|
+                    """
+    );
+
+    private final BoardStorage.Kind original = ChessBoard.storageKind;
+
+    @AfterEach
+    public void restoreStorage() {
+        ChessBoard.storageKind = original;
+    }
+
+    @Test
+    @DisplayName("Board Storage Kinds")
+    public void storageKinds() {
+        Map<String, Integer> expected = new HashMap<>();
+        for(BoardStorage.Kind kind : BoardStorage.Kind.values()){
+            ChessBoard.storageKind = kind;
+            for(Map.Entry<String, String> position : POSITIONS.entrySet()){
+                ChessGame game = new ChessGame();
+                game.setBoard(TestUtilities.loadBoard(position.getValue()));
+                game.setTeamTurn(position.getKey().equals("checkmate")
+                        ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+
+                run(game, WARMUP_ROUNDS);
+                long start = System.nanoTime();
+                int work = run(game, TIMED_ROUNDS);
+                long perRound = (System.nanoTime() - start) / TIMED_ROUNDS;
+                System.out.printf("%-14s %-12s %8d ns/round (%d)%n", kind, position.getKey(), perRound, work);
+                Integer previous = expected.putIfAbsent(position.getKey(), work);
+                if(previous != null){
+                    Assertions.assertEquals(previous, work, kind + " disagrees on " + position.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * One round is every side-to-move validMoves call plus isInCheckmate
+     *
+     * @return a count derived from the results, so the work can't be optimized away
+     */
+    private static int run(ChessGame game, int rounds) {
+        int work = 0;
+        for(int i = 0; i < rounds; i++){
+            work += game.allValidMoves().size();
+            if(game.isInCheckmate(game.getTeamTurn())){
+                work++;
+            }
+        }
+        return work;
+    }
+}
@@ -0,0 +1,45 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ChessGameCodecTests {
+
+    @Test
+    @DisplayName("Round Trip Starting Game")
+    public void roundTripStart() {
+        var game = new ChessGame();
+        byte[] bytes = ChessGameCodec.encode(game);
+        Assertions.assertEquals(ChessGameCodec.GAME_BYTES, bytes.length);
+        Assertions.assertEquals(game, ChessGameCodec.decode(bytes));
+    }
+
+    @Test
+    @DisplayName("Round Trip After Moves")
+    public void roundTripAfterMoves() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(ChessNotation.fromUci("e2e4"));
+        game.makeMove(ChessNotation.fromUci("d7d5"));
+        game.makeMove(ChessNotation.fromUci("e4d5"));
+
+        var decoded = ChessGameCodec.decode(ChessGameCodec.encode(game));
+        Assertions.assertEquals(game, decoded);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Reject Bad Encodings")
+    public void rejectBadEncodings() {
+        byte[] bytes = ChessGameCodec.encode(new ChessGame());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ChessGameCodec.decode(new byte[3]));
+
+        bytes[0] = 99;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(bytes));
+
+        bytes[0] = ChessGameCodec.VERSION;
+        bytes[10] = 0x7;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(bytes));
+    }
+}
@@ -0,0 +1,95 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+public class ChessNotationTests {
+
+    @Test
+    @DisplayName("UCI Round Trip")
+    public void uciRoundTrip() throws InvalidMoveException {
+        var move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        Assertions.assertEquals("e2e4", ChessNotation.toUci(move));
+        Assertions.assertEquals(move, ChessNotation.fromUci("e2e4"));
+
+        var promotion = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1),
+                ChessPiece.PieceType.KNIGHT);
+        Assertions.assertEquals("a7a8n", ChessNotation.toUci(promotion));
+        Assertions.assertEquals(promotion, ChessNotation.fromUci("a7a8n"));
+    }
+
+    @Test
+    @DisplayName("Malformed UCI")
+    public void malformedUci() {
+        Assertions.assertThrows(InvalidMoveException.class, () -> ChessNotation.fromUci("e2e9"));
+        Assertions.assertThrows(InvalidMoveException.class, () -> ChessNotation.fromUci("e7e8k"));
+        Assertions.assertThrows(InvalidMoveException.class, () -> ChessNotation.fromUci("e2"));
+    }
+
+    @Test
+    @DisplayName("SAN From Start")
+    public void sanFromStart() throws InvalidMoveException {
+        var notation = new ChessNotation(new ChessGame());
+        var move = new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null);
+        Assertions.assertEquals("Nf3", notation.toSan(move));
+        Assertions.assertEquals(move, notation.fromSan("Nf3"));
+        Assertions.assertEquals(move, notation.fromSan("Ngf3"));
+        Assertions.assertEquals(20, notation.legalMoves().size());
+        Assertions.assertThrows(InvalidMoveException.class, () -> notation.fromSan("Nf4"));
+    }
+
+    @Test
+    @DisplayName("SAN Disambiguation, Capture and Check")
+    public void sanDisambiguation() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |p| | | | |
+                | | | | | | | | |
+                | | |N| |N| | | |
+                | | | | |K| | | |
+                |R| | | | | | |R|
+                """));
+        var notation = new ChessNotation(game);
+
+        var knight = new ChessMove(new ChessPosition(3, 3), new ChessPosition(5, 4), null);
+        Assertions.assertEquals("Ncxd5", notation.toSan(knight));
+        Assertions.assertEquals(knight, notation.fromSan("Ncxd5"));
+
+        var rook = new ChessMove(new ChessPosition(1, 1), new ChessPosition(1, 4), null);
+        Assertions.assertEquals("Rad1", notation.toSan(rook));
+
+        var check = new ChessMove(new ChessPosition(1, 8), new ChessPosition(8, 8), null);
+        Assertions.assertEquals("Rh8+", notation.toSan(check));
+        Assertions.assertEquals(check, notation.fromSan("Rh8+"));
+    }
+
+    @Test
+    @DisplayName("SAN Promotion and Mate")
+    public void sanPromotionAndMate() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                |k| | | | | | | |
+                | | | | | | |P| |
+                |K| | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """));
+        var notation = new ChessNotation(game);
+
+        var queen = new ChessMove(new ChessPosition(7, 7), new ChessPosition(8, 7), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals("g8=Q#", notation.toSan(queen));
+        Assertions.assertEquals(queen, notation.fromSan("g8=Q"));
+        Assertions.assertEquals(queen, notation.fromSan("g8Q#"));
+
+        var knight = new ChessMove(new ChessPosition(7, 7), new ChessPosition(8, 7), ChessPiece.PieceType.KNIGHT);
+        Assertions.assertEquals("g8=N", notation.toSan(knight));
+    }
+}
@@ -0,0 +1,78 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ChessTypeAdaptersTests {
+    private final Gson gson = ChessTypeAdapters.createGson();
+
+    @Test
+    @DisplayName("Starting Game As FEN")
+    public void startingGame() {
+        var game = new ChessGame();
+        String json = gson.toJson(game);
+        Assertions.assertEquals("\"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w\"", json);
+        Assertions.assertEquals(game, gson.fromJson(json, ChessGame.class));
+    }
+
+    @Test
+    @DisplayName("Round Trip After Moves")
+    public void roundTripAfterMoves() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(ChessNotation.fromUci("e2e4"));
+        game.makeMove(ChessNotation.fromUci("g8f6"));
+        game.makeMove(ChessNotation.fromUci("e4e5"));
+
+        String json = gson.toJson(game);
+        Assertions.assertEquals("\"rnbqkb1r/pppppppp/5n2/4P3/8/8/PPPP1PPP/RNBQKBNR b\"", json);
+        Assertions.assertEquals(game, gson.fromJson(json, ChessGame.class));
+        Assertions.assertEquals(game.getBoard(), gson.fromJson(gson.toJson(game.getBoard()), ChessBoard.class));
+    }
+
+    @Test
+    @DisplayName("Plain Gson Round Trip")
+    public void plainGson() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(ChessNotation.fromUci("e2e4"));
+        var plain = new Gson();
+
+        String json = plain.toJson(game.getBoard());
+        Assertions.assertTrue(json.startsWith("{\"board\":[["), json);
+        Assertions.assertFalse(json.contains("squares"), json);
+        Assertions.assertEquals(game.getBoard(), plain.fromJson(json, ChessBoard.class));
+        Assertions.assertEquals(game, plain.fromJson(plain.toJson(game), ChessGame.class));
+    }
+
+    @Test
+    @DisplayName("Pieces, Positions and Moves")
+    public void smallTypes() {
+        var piece = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        Assertions.assertEquals("\"n\"", gson.toJson(piece));
+        Assertions.assertEquals(piece, gson.fromJson("\"n\"", ChessPiece.class));
+
+        var position = new ChessPosition(4, 5);
+        Assertions.assertEquals("\"e4\"", gson.toJson(position));
+        Assertions.assertEquals(position, gson.fromJson("\"e4\"", ChessPosition.class));
+
+        var move = new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 5), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals("\"e7e8q\"", gson.toJson(move));
+        Assertions.assertEquals(move, gson.fromJson("\"e7e8q\"", ChessMove.class));
+        Assertions.assertNull(gson.fromJson("null", ChessMove.class));
+        Assertions.assertEquals(move, gson.fromJson(new Gson().toJson(move), ChessMove.class));
+    }
+
+    @Test
+    @DisplayName("Reject Bad Text")
+    public void rejectBadText() {
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("\"8/8/8 w\"", ChessGame.class));
+        Assertions.assertThrows(JsonParseException.class,
+                () -> gson.fromJson("\"rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR\"", ChessBoard.class));
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("\"x\"", ChessPiece.class));
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("\"z9\"", ChessPosition.class));
+        Assertions.assertThrows(JsonParseException.class,
+                () -> gson.fromJson("{\"start\":{\"r\":9,\"c\":1},\"end\":{\"r\":1,\"c\":1}}", ChessMove.class));
+    }
+}
@@ -0,0 +1,69 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class GameRecordTests {
+    private static final String[] MOVES = {
+            "e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6", "d2d3", "f8c5", "c2c3", "d7d6", "b1d2"
+    };
+
+    @Test
+    @DisplayName("Positions Replay From Snapshots")
+    public void positionsReplay() throws InvalidMoveException {
+        var record = new GameRecord(new ChessGame(), 4);
+        var game = new ChessGame();
+        var expected = new ArrayList<ChessGame>();
+        expected.add(ChessGameCodec.decode(ChessGameCodec.encode(game)));
+
+        for(String uci : MOVES){
+            var move = ChessNotation.fromUci(uci);
+            Assertions.assertEquals(1, record.append(move).length);
+            game.makeMove(move);
+            expected.add(ChessGameCodec.decode(ChessGameCodec.encode(game)));
+        }
+
+        Assertions.assertEquals(MOVES.length, record.getPlyCount());
+        Assertions.assertEquals(game, record.getCurrentGame());
+        for(int ply = 0; ply <= MOVES.length; ply++){
+            Assertions.assertEquals(expected.get(ply), record.positionAt(ply), "Wrong position at ply " + ply);
+        }
+    }
+
+    @Test
+    @DisplayName("Encode, Append and Decode")
+    public void encodeAndDecode() throws InvalidMoveException {
+        var record = new GameRecord(new ChessGame());
+        var stored = new ByteArrayOutputStream();
+        stored.writeBytes(record.encode());
+        for(String uci : MOVES){
+            stored.writeBytes(record.append(ChessNotation.fromUci(uci)));
+        }
+        Assertions.assertArrayEquals(record.encode(), stored.toByteArray());
+        Assertions.assertEquals(2 + ChessGameCodec.GAME_BYTES + MOVES.length, stored.size());
+
+        var loaded = GameRecord.decode(stored.toByteArray());
+        Assertions.assertEquals(record.getPlyCount(), loaded.getPlyCount());
+        Assertions.assertEquals(record.getCurrentGame(), loaded.getCurrentGame());
+        Assertions.assertEquals(record.positionAt(5), loaded.positionAt(5));
+    }
+
+    @Test
+    @DisplayName("Reject Illegal Moves")
+    public void rejectIllegalMoves() throws InvalidMoveException {
+        var record = new GameRecord(new ChessGame());
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> record.append(ChessNotation.fromUci("e2e5")));
+        Assertions.assertEquals(0, record.getPlyCount());
+
+        byte[] bytes = record.encode();
+        byte[] corrupt = Arrays.copyOf(bytes, bytes.length + 1);
+        corrupt[bytes.length] = (byte) 200;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameRecord.decode(corrupt));
+    }
+}
@@ -0,0 +1,104 @@
+package websocket;
+
+import chess.ChessGame;
+import chess.ChessNotation;
+import chess.InvalidMoveException;
+import model.ClockTimes;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.ResumeCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.BatchMessage;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMessage;
+import websocket.messages.NotificationMessage;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class MessageBinaryTests {
+
+    @Test
+    @DisplayName("Round Trip Commands")
+    public void roundTripCommands() throws InvalidMoveException {
+        var move = new MakeMoveCommand("token", 3, ChessNotation.fromUci("e7e8q"));
+        Assertions.assertEquals(move, MessageBinary.decodeCommand(MessageBinary.encodeCommand(move)));
+        var leave = new UserGameCommand(UserGameCommand.CommandType.LEAVE, "token", 3);
+        Assertions.assertEquals(leave, MessageBinary.decodeCommand(MessageBinary.encodeCommand(leave)));
+        var resume = new ResumeCommand("token", 3, 17);
+        Assertions.assertEquals(resume, MessageBinary.decodeCommand(MessageBinary.encodeCommand(resume)));
+        var noToken = new UserGameCommand(UserGameCommand.CommandType.CONNECT, null, null);
+        Assertions.assertEquals(noToken, MessageBinary.decodeCommand(MessageBinary.encodeCommand(noToken)));
+    }
+
+    @Test
+    @DisplayName("Round Trip Messages")
+    public void roundTripMessages() throws InvalidMoveException {
+        var moved = new MoveMessage(ChessNotation.fromUci("a7a8n"), MoveMessage.Status.CHECK, 12);
+        Assertions.assertEquals(moved, MessageBinary.decodeMessage(MessageBinary.encodeMessage(moved)));
+        var error = new ErrorMessage("Error: not your turn");
+        Assertions.assertEquals(error, MessageBinary.decodeMessage(MessageBinary.encodeMessage(error)));
+
+        var load = (LoadGameMessage) MessageBinary.decodeMessage(
+                MessageBinary.encodeMessage(new LoadGameMessage(new ChessGame(), 4)));
+        Assertions.assertEquals(new ChessGame(), load.getGame());
+        Assertions.assertEquals(4, load.getSequence());
+
+        var resigned = new NotificationMessage("black resigned", 13);
+        Assertions.assertEquals(resigned, MessageBinary.decodeMessage(MessageBinary.encodeMessage(resigned)));
+
+        var batch = new BatchMessage(List.of(moved, new NotificationMessage("white moved a7a8n"), resigned));
+        Assertions.assertEquals(batch, MessageBinary.decodeMessage(MessageBinary.encodeMessage(batch)));
+    }
+
+    @Test
+    @DisplayName("Round Trip Clocks")
+    public void roundTripClocks() throws InvalidMoveException {
+        var clock = new ClockTimes(61_500, 0);
+        var moved = new MoveMessage(ChessNotation.fromUci("e2e4"), MoveMessage.Status.IN_PROGRESS, 7, clock);
+        byte[] bytes = MessageBinary.encodeMessage(moved);
+        Assertions.assertEquals(25, bytes.length);
+        Assertions.assertEquals(moved, MessageBinary.decodeMessage(bytes));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> MessageBinary.decodeMessage(Arrays.copyOf(bytes, bytes.length - 1)));
+
+        var load = (LoadGameMessage) MessageBinary.decodeMessage(
+                MessageBinary.encodeMessage(new LoadGameMessage(new ChessGame(), 4, clock)));
+        Assertions.assertEquals(clock, load.getClock());
+    }
+
+    @Test
+    @DisplayName("Smaller Than JSON")
+    public void smallerThanJson() throws InvalidMoveException {
+        var moved = new MoveMessage(ChessNotation.fromUci("e2e4"), MoveMessage.Status.IN_PROGRESS, 7);
+        Assertions.assertEquals(9, MessageBinary.encodeMessage(moved).length);
+        Assertions.assertTrue(MessageJson.toJson(moved).length() > 40);
+
+        var load = new LoadGameMessage(new ChessGame(), 0);
+        Assertions.assertTrue(MessageBinary.encodeMessage(load).length < MessageJson.toJson(load).length());
+    }
+
+    @Test
+    @DisplayName("Malformed Frames")
+    public void malformedFrames() throws InvalidMoveException {
+        byte[] moved = MessageBinary.encodeMessage(
+                new MoveMessage(ChessNotation.fromUci("e2e4"), MoveMessage.Status.IN_PROGRESS, 7));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> MessageBinary.decodeMessage(Arrays.copyOf(moved, moved.length - 1)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> MessageBinary.decodeMessage(Arrays.copyOf(moved, moved.length + 1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MessageBinary.decodeMessage(new byte[]{99}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MessageBinary.decodeCommand(new byte[0]));
+    }
+
+    @Test
+    @DisplayName("Subprotocol Picks Format")
+    public void subprotocolPicksFormat() {
+        Assertions.assertEquals(WireFormat.BINARY, WireFormat.forSubprotocol(WireFormat.BINARY_SUBPROTOCOL));
+        Assertions.assertEquals(WireFormat.JSON, WireFormat.forSubprotocol(null));
+        Assertions.assertEquals(WireFormat.JSON, WireFormat.forSubprotocol("chat"));
+    }
+}
@@ -0,0 +1,71 @@
+package websocket;
+
+import chess.ChessGame;
+import chess.ChessNotation;
+import chess.InvalidMoveException;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import model.ClockTimes;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.ResumeCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.BatchMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMessage;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+import java.util.List;
+
+public class MessageJsonTests {
+
+    @Test
+    @DisplayName("Round Trip Commands")
+    public void roundTripCommands() throws InvalidMoveException {
+        var move = new MakeMoveCommand("token", 3, ChessNotation.fromUci("e7e8q"));
+        Assertions.assertEquals(move, MessageJson.parseCommand(MessageJson.toJson(move)));
+        var leave = new UserGameCommand(UserGameCommand.CommandType.LEAVE, "token", 3);
+        Assertions.assertEquals(leave, MessageJson.parseCommand(MessageJson.toJson(leave)));
+        var resume = new ResumeCommand("token", 3, 17);
+        Assertions.assertEquals(resume, MessageJson.parseCommand(MessageJson.toJson(resume)));
+        // how the starter client, which has no chess adapters, sends a move
+        Assertions.assertEquals(move, MessageJson.parseCommand(new Gson().toJson(move)));
+
+        Assertions.assertThrows(JsonParseException.class, () -> MessageJson.parseCommand("{\"gameID\": 3}"));
+        Assertions.assertThrows(JsonParseException.class, () -> MessageJson.parseCommand("[]"));
+    }
+
+    @Test
+    @DisplayName("Move Is Much Smaller Than The Game")
+    public void moveIsSmaller() throws InvalidMoveException {
+        var moved = new MoveMessage(ChessNotation.fromUci("e2e4"), MoveMessage.Status.CHECK, 12);
+        String json = MessageJson.toJson(moved);
+        Assertions.assertEquals(moved, MessageJson.parseMessage(json));
+
+        var load = new LoadGameMessage(new ChessGame(), 12);
+        String loadJson = MessageJson.toJson(load);
+        var parsed = (LoadGameMessage) MessageJson.parseMessage(loadJson);
+        Assertions.assertEquals(ServerMessage.ServerMessageType.LOAD_GAME, parsed.getServerMessageType());
+        Assertions.assertEquals(new ChessGame(), parsed.getGame());
+        Assertions.assertTrue(json.length() < loadJson.length(), json + " vs " + loadJson);
+    }
+
+    @Test
+    @DisplayName("Round Trip Batches")
+    public void roundTripBatches() throws InvalidMoveException {
+        var batch = new BatchMessage(List.of(
+                new MoveMessage(ChessNotation.fromUci("e2e4"), MoveMessage.Status.IN_PROGRESS, 1),
+                new NotificationMessage("white moved e2e4")));
+        Assertions.assertEquals(batch, MessageJson.parseMessage(MessageJson.toJson(batch)));
+
+        var timed = new MoveMessage(ChessNotation.fromUci("e7e5"), MoveMessage.Status.IN_PROGRESS, 2,
+                new ClockTimes(59_000, 60_000));
+        Assertions.assertEquals(timed, MessageJson.parseMessage(MessageJson.toJson(timed)));
+        Assertions.assertFalse(MessageJson.toJson(batch).contains("clock"));
+        Assertions.assertThrows(JsonParseException.class,
+                () -> MessageJson.parseMessage("{\"serverMessageType\": \"BATCH\"}"));
+    }
+}